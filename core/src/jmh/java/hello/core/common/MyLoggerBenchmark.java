@@ -0,0 +1,95 @@
+package hello.core.common;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * 요청 1건(빈 생성, 로그 2줄, 빈 종료)의 로깅 비용을 200 스레드 동시 요청으로 비교한다.
+ * consoleLogger 는 기존 MyLogger 와 같은 방식(UUID + System.out.println 문자열 연결)으로 실제 표준 출력에 쓴다.
+ * asyncLogger 는 MyLogger 와 같은 네 줄을 AsyncLogWriter 로 실제 파일에 쓴다.
+ * 버퍼가 가득 차 버려진 줄은 빨리 끝나므로 결과의 asyncLogger:dropped / asyncLogger:written 을 같이 본다.
+ * capacity 를 키워 버림 없이 내려쓰는 속도와 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(200)
+public class MyLoggerBenchmark {
+
+	private static final String REQUEST_URL = "http://localhost:8080/log-Demo";
+
+	@Param({ "65536", "1048576" })
+	int capacity;
+
+	private Path logFile;
+	private AsyncLogWriter logWriter;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		logFile = Files.createTempFile("my-logger", ".log");
+		logWriter = new AsyncLogWriter(logFile, capacity);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		logWriter.close();
+		Files.deleteIfExists(logFile);
+	}
+
+	//스레드별 기록/버림 줄 수, 반복마다 결과에 합산되어 나온다
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class LineCounters {
+		public long written;
+		public long dropped;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			written = 0;
+			dropped = 0;
+		}
+
+		void count(boolean result) {
+			if (result) {
+				written++;
+			} else {
+				dropped++;
+			}
+		}
+	}
+
+	@Benchmark
+	public void consoleLogger() {
+		String uuid = UUID.randomUUID().toString();
+		System.out.println("[" + uuid + "] request scope bean create : " + this);
+		System.out.println("[" + uuid + "]" + "[" + REQUEST_URL + "]" + "controller test");
+		System.out.println("[" + uuid + "]" + "[" + REQUEST_URL + "]" + "service id = testId");
+		System.out.println("[" + uuid + "] request scope bean close : " + this);
+	}
+
+	//MyLogger 의 init, log 2번, close 와 같은 쓰기를 하되 결과를 센다
+	@Benchmark
+	public void asyncLogger(LineCounters counters) {
+		long requestId = RequestContext.nextRequestId();
+		counters.count(logWriter.write(requestId, null, "request scope bean create"));
+		counters.count(logWriter.write(requestId, REQUEST_URL, "controller test"));
+		counters.count(logWriter.write(requestId, REQUEST_URL, "service id = testId"));
+		counters.count(logWriter.write(requestId, REQUEST_URL, "request scope bean close"));
+	}
+}
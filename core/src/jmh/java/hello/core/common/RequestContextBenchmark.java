@@ -0,0 +1,120 @@
+package hello.core.common;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.RequestScope;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * 요청 1건에서 요청 정보를 accessCount 번 읽는 비용 비교.
+ * <ul>
+ * <li>scopedProxy: MyLogger 스코프 프록시 (호출마다 RequestContextHolder + 스코프 조회)</li>
+ * <li>objectProvider: ObjectProvider&lt;MyLogger&gt;.getObject() 한 번 후 실제 객체 사용</li>
+ * <li>requestContext: RequestContext 바인딩 후 ContextLogger 사용</li>
+ * </ul>
+ * 조회 비용만 비교한다. 요청 진입/종료(RequestAttributes, RequestContext 바인딩)는 {@link BoundRequest} 가
+ * 스레드마다 iteration 시작과 끝에 한 번씩 하고, MyLogger 는 그 요청에서 처음 조회할 때 한 번만 만들어진다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+public class RequestContextBenchmark {
+
+	@Param({ "1", "10" })
+	int accessCount;
+
+	private AnnotationConfigApplicationContext ac;
+	private Path logFile;
+	private MyLogger myLoggerProxy;
+	private ObjectProvider<MyLogger> myLoggerProvider;
+	private ContextLogger contextLogger;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		logFile = Files.createTempFile("request-context", ".log");
+		ac = new AnnotationConfigApplicationContext();
+		ac.getBeanFactory().registerScope(WebApplicationContext.SCOPE_REQUEST, new RequestScope());
+		ac.registerBean(AsyncLogWriter.class, () -> new AsyncLogWriter(logFile, 1 << 16));
+		ac.register(MyLogger.class, ContextLogger.class);
+		ac.refresh();
+
+		myLoggerProxy = ac.getBean(MyLogger.class);
+		myLoggerProvider = ac.getBeanProvider(MyLogger.class);
+		contextLogger = ac.getBean(ContextLogger.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		ac.close();
+		Files.deleteIfExists(logFile);
+	}
+
+	@Benchmark
+	public long scopedProxy(BoundRequest request) {
+		long sum = 0;
+		for (int i = 0; i < accessCount; i++) {
+			sum += myLoggerProxy.getRequestId();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long objectProvider(BoundRequest request) {
+		MyLogger myLogger = myLoggerProvider.getObject();
+		long sum = 0;
+		for (int i = 0; i < accessCount; i++) {
+			sum += myLogger.getRequestId();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long requestContext(BoundRequest request) {
+		long sum = 0;
+		for (int i = 0; i < accessCount; i++) {
+			sum += contextLogger.getRequestId();
+		}
+		return sum;
+	}
+
+	//측정 스레드에 묶인 요청 하나, 세 방식 모두 같은 조건에서 조회만 한다
+	@State(Scope.Thread)
+	public static class BoundRequest {
+
+		private ServletRequestAttributes attributes;
+		private RequestContext.Binding binding;
+
+		@Setup(Level.Iteration)
+		public void bind() {
+			attributes = new ServletRequestAttributes(new MockHttpServletRequest());
+			RequestContextHolder.setRequestAttributes(attributes);
+			binding = RequestContext.bind(new RequestContext(RequestContext.nextRequestId(), "/log-Demo"));
+		}
+
+		@TearDown(Level.Iteration)
+		public void unbind() {
+			binding.close();
+			attributes.requestCompleted();
+			RequestContextHolder.resetRequestAttributes();
+		}
+	}
+}
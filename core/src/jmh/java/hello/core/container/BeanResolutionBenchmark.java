@@ -0,0 +1,157 @@
+package hello.core.container;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import hello.core.AppConfig;
+import hello.core.discount.DiscountPolicy;
+import hello.core.discount.DiscountPolicyRegistry;
+import hello.core.discount.FixDiscountPolicy;
+import hello.core.discount.RateDiscountPolicy;
+import hello.core.member.Grade;
+import hello.core.member.Member;
+import hello.core.member.MemberRepository;
+import jakarta.inject.Provider;
+
+/**
+ * core 테스트에서 동작만 확인한 빈 조회 방식들의 비용.
+ * <ul>
+ * <li>SingletonTest / PrototypeTest: getBean 싱글톤 vs 프로토타입</li>
+ * <li>SingletonWithPrototypeTest1: ObjectProvider.getObject() vs jakarta.inject.Provider.get()</li>
+ * <li>AllBeanTest.DiscountService: Map&lt;String, DiscountPolicy&gt; 조회 vs DiscountPolicyRegistry 배열 조회 + 구체 타입 switch vs 필드 직접 호출</li>
+ * <li>ConfigurationSingletonTest: CGLIB 로 감싼 AppConfig 의 @Bean 메서드 호출 vs getBean</li>
+ * </ul>
+ * build.gradle 의 jmh 설정으로 gc 프로파일러(gc.alloc.rate.norm)가 함께 돈다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BeanResolutionBenchmark {
+
+	private AnnotationConfigApplicationContext ac;
+	private ProviderClient providerClient;
+	private DiscountService discountService;
+	private DiscountPolicy directPolicy;
+	private DiscountPolicyRegistry registry;
+	private int fixPolicyId;
+	private AppConfig appConfig;
+	private Member member;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		ac = new AnnotationConfigApplicationContext(AppConfig.class, SingletonBean.class, PrototypeBean.class,
+				ProviderClient.class, RateDiscountPolicy.class, FixDiscountPolicy.class, DiscountService.class,
+				DiscountPolicyRegistry.class);
+		providerClient = ac.getBean(ProviderClient.class);
+		discountService = ac.getBean(DiscountService.class);
+		directPolicy = ac.getBean(FixDiscountPolicy.class);
+		registry = ac.getBean(DiscountPolicyRegistry.class);
+		fixPolicyId = registry.idOf("fixDiscountPolicy");
+		appConfig = ac.getBean(AppConfig.class);
+		member = new Member(1L, "memberA", Grade.VIP);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		ac.close();
+	}
+
+	@Benchmark
+	public SingletonBean singletonLookup() {
+		return ac.getBean(SingletonBean.class);
+	}
+
+	@Benchmark
+	public PrototypeBean prototypeLookup() {
+		return ac.getBean(PrototypeBean.class);
+	}
+
+	@Benchmark
+	public PrototypeBean objectProvider() {
+		return providerClient.objectProvider.getObject();
+	}
+
+	@Benchmark
+	public PrototypeBean jakartaProvider() {
+		return providerClient.jakartaProvider.get();
+	}
+
+	@Benchmark
+	public int mapDispatch() {
+		return discountService.discount(member, 10000, "fixDiscountPolicy");
+	}
+
+	@Benchmark
+	public int registryDispatch() {
+		return registry.discount(fixPolicyId, member, 10000);
+	}
+
+	@Benchmark
+	public int directDispatch() {
+		return directPolicy.discount(member, 10000);
+	}
+
+	@Benchmark
+	public MemberRepository configurationBeanMethod() {
+		return appConfig.memberRepository();
+	}
+
+	@Benchmark
+	public MemberRepository getBeanByName() {
+		return ac.getBean("memberRepository", MemberRepository.class);
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.include(BeanResolutionBenchmark.class.getSimpleName())
+				.addProfiler("gc")
+				.forks(1)
+				.build();
+		new Runner(options).run();
+	}
+
+	@org.springframework.context.annotation.Scope("singleton")
+	public static class SingletonBean {
+	}
+
+	@org.springframework.context.annotation.Scope("prototype")
+	public static class PrototypeBean {
+	}
+
+	public static class ProviderClient {
+		@Autowired
+		ObjectProvider<PrototypeBean> objectProvider;
+
+		@Autowired
+		Provider<PrototypeBean> jakartaProvider;
+	}
+
+	//AllBeanTest.DiscountService 와 같은 구조(출력만 제거)
+	public static class DiscountService {
+		private final Map<String, DiscountPolicy> policyMap;
+
+		public DiscountService(Map<String, DiscountPolicy> policyMap) {
+			this.policyMap = policyMap;
+		}
+
+		public int discount(Member member, int price, String discountCode) {
+			return policyMap.get(discountCode).discount(member, price);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package hello.core.member;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * MemoryMemberRepository 저장소 비교.
+ * <p>
+ * readPercent 로 읽기/쓰기 비율을 정한다(95 = 읽기 위주, 20 = 쓰기 위주).
+ * 쓰기는 미리 넣어 둔 키를 덮어쓰기만 하므로 HashMap 도 구조 변경 없이 측정할 수 있다.
+ * 1~64 스레드 전체는 main 으로 실행한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MemberStoreBenchmark {
+
+	private static final int MEMBER_COUNT = 100_000;
+
+	@Param({ "hashMap", "synchronizedHashMap", "concurrentHashMap", "memberStore" })
+	String store;
+
+	@Param({ "95", "20" })
+	int readPercent;
+
+	private Map<Long, Member> map;
+	private ConcurrentMemberStore memberStore;
+	private Member[] members;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		members = new Member[MEMBER_COUNT];
+		for (int i = 0; i < MEMBER_COUNT; i++) {
+			members[i] = new Member((long) i, "member" + i, i % 10 == 0 ? Grade.VIP : Grade.BASIC);
+		}
+		if ("memberStore".equals(store)) {
+			memberStore = new ConcurrentMemberStore();
+			for (Member member : members) {
+				memberStore.put(member.getId(), member);
+			}
+		} else {
+			map = newMap(store);
+			for (Member member : members) {
+				map.put(member.getId(), member);
+			}
+		}
+	}
+
+	@Benchmark
+	public Member readWrite() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int index = random.nextInt(MEMBER_COUNT);
+		Member member = members[index];
+		boolean read = random.nextInt(100) < readPercent;
+		if (memberStore != null) {
+			if (read) {
+				return memberStore.get(member.getId());
+			}
+			memberStore.put(member.getId(), member);
+			return member;
+		}
+		if (read) {
+			return map.get(member.getId());
+		}
+		map.put(member.getId(), member);
+		return member;
+	}
+
+	private static Map<Long, Member> newMap(String store) {
+		switch (store) {
+		case "hashMap":
+			return new HashMap<>();
+		case "synchronizedHashMap":
+			return Collections.synchronizedMap(new HashMap<>());
+		default:
+			return new ConcurrentHashMap<>();
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		for (int threads : new int[] { 1, 4, 16, 64 }) {
+			Options options = new OptionsBuilder()
+					.include(MemberStoreBenchmark.class.getSimpleName())
+					.threads(threads)
+					.forks(1)
+					.warmupIterations(3)
+					.measurementIterations(5)
+					.build();
+			new Runner(options).run();
+		}
+	}
+}
@@ -10,6 +10,7 @@ import hello.core.member.MemberService;
 import hello.core.member.MemberServiceImpl;
 import hello.core.member.MemoryMemberRepository;
 
+//memberService(), orderService() 가 memberRepository() 를 직접 호출하므로 lite 모드(proxyBeanMethods = false)로 바꾸면 안 된다
 @Configuration
 public class AppConfig {
 
@@ -22,7 +23,7 @@ public class AppConfig {
 	@Bean
 	public OrderService orderService() {
 		System.out.println("call AppConfig.OrderService");
-		return new OrderServiceImpl(memberRepository(), discountPolicy());
+		return new OrderServiceImpl(memberRepository(), discountPolicy(), memoryOrderAnalytics());
 	}
 	
 	@Bean
@@ -31,6 +32,12 @@ public class AppConfig {
 		return new MemoryMemberRepository();
 	}
 	
+	//컴포넌트 스캔되는 orderAnalytics 빈과 이름이 겹치지 않도록
+	@Bean
+	public OrderAnalytics memoryOrderAnalytics() {
+		return new OrderAnalytics();
+	}
+	
 	@Bean
 	public DiscountPolicy discountPolicy() {
 		return new RateDiscountPolicy();
@@ -2,12 +2,17 @@ package hello.core;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
-@SpringBootApplication
+//@Bean 메서드가 없으므로 CGLIB 프록시가 필요 없다
+@SpringBootApplication(proxyBeanMethods = false)
 public class CoreApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(CoreApplication.class, args);
+		SpringApplication application = new SpringApplication(CoreApplication.class);
+		//core.startup.report=true 이면 StartupReportListener 가 단계별/빈별 시간을 출력한다
+		application.setApplicationStartup(new BufferingApplicationStartup(10000));
+		application.run(args);
 	}
 
 }
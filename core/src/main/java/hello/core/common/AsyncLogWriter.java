@@ -0,0 +1,223 @@
+package hello.core.common;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 요청 스레드는 고정 크기 링 버퍼에 로그를 넣기만 하고, 백그라운드 스레드 하나가 파일로 내려쓴다.
+ * <p>
+ * 슬롯마다 시퀀스를 두는 다중 생산자/단일 소비자 큐라서 생산자는 CAS 한 번으로 슬롯을 잡는다.
+ * 슬롯 객체는 미리 만들어 재사용한다. 버퍼가 가득 차면 요청 스레드를 막지 않고 버린 뒤 개수만 센다.
+ * close() 뒤에도 소비 스레드는 이미 잡힌 슬롯이 채워질 때까지(최대 CLOSE_TIMEOUT_NANOS) 기다렸다가 내려쓰고,
+ * 그때까지 채워지지 않은 슬롯은 버린 개수에 더한다. 소비 스레드가 끝나면(close 또는 쓰기 오류) 링 버퍼를 닫아
+ * 그 뒤의 write 는 바로 false 를 돌려주고 버린 개수에 더한다.
+ * <p>
+ * 파일 위치는 my-logger.dir(기본 java.io.tmpdir) 아래 my-logger.file(기본 my-logger.log)이다.
+ * my-logger.file 이 절대 경로면 그대로 쓴다. 작업 디렉터리에 따라 위치가 바뀌지 않는다.
+ */
+@Slf4j
+@Component
+public class AsyncLogWriter {
+
+	private static final int DEFAULT_CAPACITY = 1 << 14;
+	static final long CLOSE_TIMEOUT_NANOS = 1_000_000_000L;
+	//tail 이 이 값이면 소비 스레드가 끝나 더 받지 않는다
+	private static final long SEALED = Long.MIN_VALUE;
+
+	private final Path path;
+	private final Slot[] slots;
+	private final AtomicLongArray sequences;
+	private final int mask;
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private long head;
+	//마지막으로 flush 에 성공했을 때의 head, 쓰기 오류 시 그 뒤는 버린 것으로 센다
+	private long flushedHead;
+
+	private volatile boolean running = true;
+	private volatile long closeDeadline;
+	private volatile Thread drainer;
+
+	@Autowired
+	public AsyncLogWriter(@Value("${my-logger.dir:${java.io.tmpdir}}") String dir,
+			@Value("${my-logger.file:my-logger.log}") String file) {
+		this(Paths.get(dir).resolve(file), DEFAULT_CAPACITY);
+	}
+
+	public AsyncLogWriter(Path path, int capacity) {
+		if (Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+		}
+		this.path = path;
+		this.slots = new Slot[capacity];
+		this.sequences = new AtomicLongArray(capacity);
+		this.mask = capacity - 1;
+		for (int i = 0; i < capacity; i++) {
+			slots[i] = new Slot();
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * @return 버퍼가 가득 찼거나 이미 닫혀 버려졌으면 false
+	 */
+	public boolean write(long requestId, String requestURL, String message) {
+		long seq = claim();
+		if (seq < 0) {
+			return false;
+		}
+		publish(seq, requestId, requestURL, message);
+		return true;
+	}
+
+	//슬롯을 잡고 시퀀스를 돌려준다, 가득 찼거나 닫혔으면 버린 개수를 세고 -1
+	long claim() {
+		while (true) {
+			long seq = tail.get();
+			if (seq == SEALED) {
+				dropped.incrementAndGet();
+				return -1;
+			}
+			long slotSeq = sequences.get((int) seq & mask);
+			if (slotSeq == seq) {
+				if (tail.compareAndSet(seq, seq + 1)) {
+					return seq;
+				}
+			} else if (slotSeq < seq) {
+				dropped.incrementAndGet();
+				return -1;
+			}
+		}
+	}
+
+	void publish(long seq, long requestId, String requestURL, String message) {
+		int index = (int) seq & mask;
+		Slot slot = slots[index];
+		slot.requestId = requestId;
+		slot.requestURL = requestURL;
+		slot.message = message;
+		sequences.set(index, seq + 1);
+
+		if (drainer == null) {
+			startDrainer();
+		}
+	}
+
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	//소비 스레드가 끝날 때 한 번, 내려쓰지 못한 잡힌 슬롯을 세고 이후의 claim 을 막는다
+	private void seal(long writtenHead) {
+		long claimed = tail.getAndSet(SEALED);
+		if (claimed != SEALED) {
+			dropped.addAndGet(claimed - writtenHead);
+		}
+	}
+
+	private synchronized void startDrainer() {
+		if (drainer != null || !running) {
+			return;
+		}
+		Thread thread = new Thread(this::drainLoop, "my-logger-writer");
+		thread.setDaemon(true);
+		drainer = thread;
+		thread.start();
+	}
+
+	private void drainLoop() {
+		try (Writer writer = openWriter()) {
+			StringBuilder line = new StringBuilder(256);
+			//close() 뒤에도 잡힌 슬롯(tail)까지는 채워지기를 기다린다
+			while (running || head < tail.get()) {
+				int drained = drain(writer, line);
+				if (drained == 0) {
+					if (!running && System.nanoTime() - closeDeadline > 0) {
+						break;
+					}
+					flush(writer);
+					LockSupport.parkNanos(1_000_000L);
+				}
+			}
+			flush(writer);
+			seal(head);
+		} catch (IOException e) {
+			running = false;
+			//flush 되지 않은 줄과 앞으로 들어올 줄은 모두 버린 개수에 들어간다
+			seal(flushedHead);
+			log.error("AsyncLogWriter stopped writing {}, dropped={}", path, dropped.get(), e);
+		}
+	}
+
+	private void flush(Writer writer) throws IOException {
+		writer.flush();
+		flushedHead = head;
+	}
+
+	private int drain(Writer writer, StringBuilder line) throws IOException {
+		int count = 0;
+		while (true) {
+			int index = (int) head & mask;
+			if (sequences.get(index) != head + 1) {
+				return count;
+			}
+			Slot slot = slots[index];
+			line.setLength(0);
+			line.append('[').append(slot.requestId).append("][").append(slot.requestURL).append(']')
+					.append(slot.message).append('\n');
+			slot.requestURL = null;
+			slot.message = null;
+			sequences.set(index, head + slots.length);
+			head++;
+			writer.append(line);
+			count++;
+		}
+	}
+
+	private Writer openWriter() throws IOException {
+		Path parent = path.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		return new BufferedWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+				StandardOpenOption.APPEND), 1 << 16);
+	}
+
+	@PreDestroy
+	public void close() throws InterruptedException {
+		closeDeadline = System.nanoTime() + CLOSE_TIMEOUT_NANOS;
+		Thread thread;
+		synchronized (this) {
+			running = false;
+			thread = drainer;
+		}
+		if (thread == null) {
+			//한 번도 쓰지 않았으면 소비 스레드가 없으므로 여기서 닫는다
+			seal(head);
+			return;
+		}
+		thread.join(5000);
+	}
+
+	private static final class Slot {
+		long requestId;
+		String requestURL;
+		String message;
+	}
+}
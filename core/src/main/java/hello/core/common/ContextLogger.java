@@ -0,0 +1,25 @@
+package hello.core.common;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * MyLogger 와 같은 용도의 싱글톤 로거. 프록시 없이 주입받아 쓰고, 요청 정보는 RequestContext 에서 읽는다.
+ */
+@Component
+public class ContextLogger {
+
+	private final AsyncLogWriter logWriter;
+
+	public ContextLogger(AsyncLogWriter logWriter) {
+		this.logWriter = logWriter;
+	}
+
+	public long getRequestId() {
+		return RequestContext.current().getRequestId();
+	}
+
+	public void log(String message) {
+		RequestContext context = RequestContext.current();
+		logWriter.write(context.getRequestId(), context.getRequestURL(), message);
+	}
+}
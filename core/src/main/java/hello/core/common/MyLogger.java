@@ -1,7 +1,5 @@
 package hello.core.common;
 
-import java.util.UUID;
-
 import org.springframework.context.annotation.Scope;
 import org.springframework.context.annotation.ScopedProxyMode;
 import org.springframework.stereotype.Component;
@@ -13,26 +11,35 @@ import jakarta.annotation.PreDestroy;
 @Scope(value = "request", proxyMode = ScopedProxyMode.TARGET_CLASS)
 public class MyLogger {
 
-	private String uuid;
+	private final AsyncLogWriter logWriter;
+	private long requestId;
 	private String requestURL;
 	
+	public MyLogger(AsyncLogWriter logWriter) {
+		this.logWriter = logWriter;
+	}
+	
 	public void setRequestURL(String requestURL) {
 		this.requestURL = requestURL;
 	}
 	
+	public long getRequestId() {
+		return requestId;
+	}
+	
 	public void log(String message) {
-		System.out.println("[" + uuid + "]" + "[" + requestURL + "]" + message);
+		logWriter.write(requestId, requestURL, message);
 	}
 	
 	@PostConstruct
 	public void init() {
-		this.uuid = UUID.randomUUID().toString();
-		System.out.println("[" + uuid + "] request scope bean create : " + this); 
+		//UUID 대신 프로세스 내에서 증가하는 요청 번호
+		this.requestId = RequestContext.nextRequestId();
+		logWriter.write(requestId, requestURL, "request scope bean create");
 	}
 	
 	@PreDestroy
 	public void close() {
-		System.out.println("[" + uuid + "] request scope bean close : " + this); 
-
+		logWriter.write(requestId, requestURL, "request scope bean close");
 	}
 }
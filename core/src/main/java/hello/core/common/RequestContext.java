@@ -0,0 +1,74 @@
+package hello.core.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 요청 하나의 상태. 요청 진입 시 한 번 바인딩하고, 이후에는 ThreadLocal 조회 한 번(O(1))으로 읽는다.
+ * <p>
+ * request 스코프 프록시처럼 호출마다 RequestContextHolder, 스코프 조회를 거치지 않는다.
+ * 바인딩은 항상 try-with-resources 로 해제하므로 풀 스레드와 가상 스레드 모두에서 값이 새지 않는다.
+ */
+public final class RequestContext {
+
+	private static final AtomicLong REQUEST_SEQUENCE = new AtomicLong();
+	private static final ThreadLocal<RequestContext> CURRENT = new ThreadLocal<>();
+
+	private final long requestId;
+	private final String requestURL;
+
+	public RequestContext(long requestId, String requestURL) {
+		this.requestId = requestId;
+		this.requestURL = requestURL;
+	}
+
+	public static long nextRequestId() {
+		return REQUEST_SEQUENCE.incrementAndGet();
+	}
+
+	public static Binding bind(RequestContext context) {
+		RequestContext previous = CURRENT.get();
+		CURRENT.set(context);
+		return new Binding(previous);
+	}
+
+	/**
+	 * @throws IllegalStateException 바인딩된 요청이 없을 때
+	 */
+	public static RequestContext current() {
+		RequestContext context = CURRENT.get();
+		if (context == null) {
+			throw new IllegalStateException("No RequestContext bound to thread " + Thread.currentThread().getName());
+		}
+		return context;
+	}
+
+	public static boolean isBound() {
+		return CURRENT.get() != null;
+	}
+
+	public long getRequestId() {
+		return requestId;
+	}
+
+	public String getRequestURL() {
+		return requestURL;
+	}
+
+	public static final class Binding implements AutoCloseable {
+
+		private final RequestContext previous;
+
+		private Binding(RequestContext previous) {
+			this.previous = previous;
+		}
+
+		@Override
+		public void close() {
+			if (previous == null) {
+				CURRENT.remove();
+			} else {
+				CURRENT.set(previous);
+			}
+		}
+	}
+}
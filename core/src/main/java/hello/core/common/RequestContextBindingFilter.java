@@ -0,0 +1,25 @@
+package hello.core.common;
+
+import java.io.IOException;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+//요청 진입 시 RequestContext 를 한 번 만들어 바인딩한다
+@Component
+public class RequestContextBindingFilter extends OncePerRequestFilter {
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		RequestContext context = new RequestContext(RequestContext.nextRequestId(), request.getRequestURI());
+		try (RequestContext.Binding binding = RequestContext.bind(context)) {
+			filterChain.doFilter(request, response);
+		}
+	}
+}
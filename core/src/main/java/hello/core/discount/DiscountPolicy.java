@@ -1,8 +1,26 @@
 package hello.core.discount;
 
+import hello.core.member.Grade;
 import hello.core.member.Member;
 
 public interface DiscountPolicy {
 
 	int discount(Member member, int price);
+
+	//상품별 규칙이 있는 정책만 itemName 을 사용한다
+	default int discount(Member member, String itemName, int price) {
+		return discount(member, price);
+	}
+
+	//배치용: grades[i], itemNames[i], prices[i] 로 discounts[i] 를 채운다. 한 건씩 discount(member, itemName, price) 한 것과 같아야 한다
+	default void discountAll(Grade[] grades, String[] itemNames, int[] prices, int[] discounts) {
+		Grade[] values = Grade.values();
+		Member[] gradeMembers = new Member[values.length];
+		for (Grade grade : values) {
+			gradeMembers[grade.ordinal()] = new Member(null, null, grade);
+		}
+		for (int i = 0; i < prices.length; i++) {
+			discounts[i] = discount(gradeMembers[grades[i].ordinal()], itemNames[i], prices[i]);
+		}
+	}
 }
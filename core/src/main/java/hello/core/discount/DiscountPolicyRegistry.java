@@ -0,0 +1,138 @@
+package hello.core.discount;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.stereotype.Component;
+
+import hello.core.member.Member;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 빈 이름(할인 코드)으로 등록된 DiscountPolicy 들을 기동 시 0부터 시작하는 정수 id 로 바꿔 배열에 담는다.
+ * <p>
+ * 호출하는 쪽은 idOf(code) 를 한 번만 구해 두고 discount(id, ...) 로 배열 인덱스 조회만 한다.
+ * 매번 Map&lt;String, DiscountPolicy&gt; 를 찾는 AllBeanTest.DiscountService 방식보다 싸다.
+ * id 는 코드 이름 순서라 같은 빈 구성이면 항상 같다.
+ * <p>
+ * 클래스가 정확히 FixDiscountPolicy, RateDiscountPolicy 인 정책은 기동 시 종류를 기록해 두고 switch 로 나눠
+ * 구체 타입으로 직접 부른다. 호출 지점마다 수신 타입이 하나라 JIT 가 인라인할 수 있다.
+ * 그 밖의 구현(TableDiscountPolicy, 하위 클래스 등)만 인터페이스 호출 지점 하나를 같이 쓴다.
+ */
+@Slf4j
+@Component
+public class DiscountPolicyRegistry {
+
+	//C2 는 호출 지점 하나에서 구현 클래스 2개까지만 인라인한다(bimorphic), 그보다 많으면 megamorphic
+	static final int MAX_INLINED_RECEIVER_TYPES = 2;
+
+	private static final byte OTHER = 0;
+	private static final byte FIX = 1;
+	private static final byte RATE = 2;
+
+	private final String[] codes;
+	private final DiscountPolicy[] policies;
+	private final byte[] kinds;
+	private final Map<String, Integer> ids;
+	//switch 로 나누지 못해 인터페이스 호출 지점을 같이 쓰는 구현
+	private final Set<Class<?>> implementations;
+
+	public DiscountPolicyRegistry(Map<String, DiscountPolicy> policyMap) {
+		Map<String, DiscountPolicy> sorted = new TreeMap<>(policyMap);
+		this.codes = sorted.keySet().toArray(new String[0]);
+		this.policies = sorted.values().toArray(new DiscountPolicy[0]);
+		this.kinds = new byte[policies.length];
+		this.ids = new HashMap<>();
+		this.implementations = new LinkedHashSet<>();
+		for (int i = 0; i < codes.length; i++) {
+			ids.put(codes[i], i);
+			kinds[i] = kindOf(policies[i]);
+			if (kinds[i] == OTHER) {
+				implementations.add(policies[i].getClass());
+			}
+		}
+		if (isMegamorphic()) {
+			log.warn("DiscountPolicyRegistry dispatches to {} other implementation classes {}; the JIT cannot inline more "
+					+ "than {} at one call site, so discount() will use a megamorphic virtual call for them",
+					implementations.size(), implementationNames(), MAX_INLINED_RECEIVER_TYPES);
+		}
+	}
+
+	/**
+	 * @throws IllegalArgumentException 등록되지 않은 코드
+	 */
+	public int idOf(String code) {
+		Integer id = ids.get(code);
+		if (id == null) {
+			throw new IllegalArgumentException("unknown discount code: " + code + ", registered: " + ids.keySet());
+		}
+		return id;
+	}
+
+	public DiscountPolicy get(int policyId) {
+		return policies[policyId];
+	}
+
+	public String getCode(int policyId) {
+		return codes[policyId];
+	}
+
+	public int size() {
+		return policies.length;
+	}
+
+	//상품별 규칙 없이 등급과 가격만으로 할인
+	public int discount(int policyId, Member member, int price) {
+		DiscountPolicy policy = policies[policyId];
+		switch (kinds[policyId]) {
+		case FIX:
+			return ((FixDiscountPolicy) policy).discount(member, price);
+		case RATE:
+			return ((RateDiscountPolicy) policy).discount(member, price);
+		default:
+			return policy.discount(member, price);
+		}
+	}
+
+	//상품별 규칙이 있는 정책(TableDiscountPolicy)에 itemName 을 넘긴다
+	public int discount(int policyId, Member member, String itemName, int price) {
+		DiscountPolicy policy = policies[policyId];
+		switch (kinds[policyId]) {
+		case FIX:
+			return ((FixDiscountPolicy) policy).discount(member, itemName, price);
+		case RATE:
+			return ((RateDiscountPolicy) policy).discount(member, itemName, price);
+		default:
+			return policy.discount(member, itemName, price);
+		}
+	}
+
+	//하위 클래스는 재정의했을 수 있으므로 정확히 같은 클래스만
+	private static byte kindOf(DiscountPolicy policy) {
+		if (policy.getClass() == FixDiscountPolicy.class) {
+			return FIX;
+		}
+		if (policy.getClass() == RateDiscountPolicy.class) {
+			return RATE;
+		}
+		return OTHER;
+	}
+
+	//switch 로 나누지 못한 구현이 인라인 한도보다 많은지
+	public boolean isMegamorphic() {
+		return implementations.size() > MAX_INLINED_RECEIVER_TYPES;
+	}
+
+	private List<String> implementationNames() {
+		List<String> names = new ArrayList<>();
+		for (Class<?> implementation : implementations) {
+			names.add(implementation.getSimpleName());
+		}
+		return names;
+	}
+}
@@ -0,0 +1,52 @@
+package hello.core.discount;
+
+import hello.core.member.Grade;
+import lombok.Getter;
+
+/**
+ * 할인 규칙 한 줄: 등급 x 가격 구간(minPrice 이상) x 상품.
+ * itemName 이 null 이면 모든 상품에 적용된다.
+ * 할인 금액 = price * percent / 100 + fixAmount (최대 price)
+ */
+@Getter
+public class DiscountRule {
+
+	private final Grade grade;
+	private final String itemName;
+	private final int minPrice;
+	private final int percent;
+	private final int fixAmount;
+
+	public DiscountRule(Grade grade, String itemName, int minPrice, int percent, int fixAmount) {
+		if (grade == null) {
+			throw new IllegalArgumentException("grade is null");
+		}
+		if (minPrice < 0 || percent < 0 || percent > 100 || fixAmount < 0) {
+			throw new IllegalArgumentException("invalid rule: minPrice=" + minPrice + ", percent=" + percent
+					+ ", fixAmount=" + fixAmount);
+		}
+		this.grade = grade;
+		this.itemName = itemName;
+		this.minPrice = minPrice;
+		this.percent = percent;
+		this.fixAmount = fixAmount;
+	}
+
+	public static DiscountRule rate(Grade grade, int minPrice, int percent) {
+		return new DiscountRule(grade, null, minPrice, percent, 0);
+	}
+
+	public static DiscountRule fix(Grade grade, int minPrice, int fixAmount) {
+		return new DiscountRule(grade, null, minPrice, 0, fixAmount);
+	}
+
+	public DiscountRule forItem(String itemName) {
+		return new DiscountRule(grade, itemName, minPrice, percent, fixAmount);
+	}
+
+	@Override
+	public String toString() {
+		return "DiscountRule [grade=" + grade + ", itemName=" + itemName + ", minPrice=" + minPrice + ", percent="
+				+ percent + ", fixAmount=" + fixAmount + "]";
+	}
+}
@@ -0,0 +1,152 @@
+package hello.core.discount;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import hello.core.member.Grade;
+
+/**
+ * DiscountRule 목록을 미리 컴파일한 조회 테이블. 한 번 만들면 바뀌지 않는다.
+ * <p>
+ * 등급별로 가격 구간 시작값 배열을 두고 이진 탐색으로 구간을 찾는다(구간 수가 작아 사실상 상수 시간).
+ * 조회 중에는 객체를 만들지 않는다. 상품 규칙이 있으면 공통 규칙보다 우선한다.
+ * 상품 규칙의 가격 구간에 들지 않는 가격은 공통 규칙으로 계산한다.
+ * 같은 (등급, 상품, minPrice) 규칙이 여러 개면 목록에서 뒤에 있는 규칙이 이긴다.
+ */
+public class DiscountRuleTable {
+
+	private static final Grade[] GRADES = Grade.values();
+
+	private final Bands[] common;
+	private final Map<String, Bands[]> byItem;
+	private final int ruleCount;
+
+	private DiscountRuleTable(Bands[] common, Map<String, Bands[]> byItem, int ruleCount) {
+		this.common = common;
+		this.byItem = byItem;
+		this.ruleCount = ruleCount;
+	}
+
+	public static DiscountRuleTable compile(List<DiscountRule> rules) {
+		List<DiscountRule> commonRules = new ArrayList<>();
+		Map<String, List<DiscountRule>> itemRules = new LinkedHashMap<>();
+		for (DiscountRule rule : rules) {
+			if (rule.getItemName() == null) {
+				commonRules.add(rule);
+			} else {
+				itemRules.computeIfAbsent(rule.getItemName(), k -> new ArrayList<>()).add(rule);
+			}
+		}
+
+		Map<String, Bands[]> byItem = new HashMap<>();
+		for (Map.Entry<String, List<DiscountRule>> entry : itemRules.entrySet()) {
+			byItem.put(entry.getKey(), compileByGrade(entry.getValue()));
+		}
+		return new DiscountRuleTable(compileByGrade(commonRules), byItem, rules.size());
+	}
+
+	public int discount(Grade grade, String itemName, int price) {
+		int g = grade.ordinal();
+		if (itemName != null && !byItem.isEmpty()) {
+			Bands[] item = byItem.get(itemName);
+			if (item != null && item[g] != null && item[g].covers(price)) {
+				return item[g].discount(price);
+			}
+		}
+		Bands bands = common[g];
+		return bands == null ? 0 : bands.discount(price);
+	}
+
+	public int getRuleCount() {
+		return ruleCount;
+	}
+
+	private static Bands[] compileByGrade(List<DiscountRule> rules) {
+		Bands[] result = new Bands[GRADES.length];
+		for (Grade grade : GRADES) {
+			List<DiscountRule> gradeRules = new ArrayList<>();
+			for (DiscountRule rule : rules) {
+				if (rule.getGrade() == grade) {
+					gradeRules.add(rule);
+				}
+			}
+			if (!gradeRules.isEmpty()) {
+				result[grade.ordinal()] = Bands.of(gradeRules);
+			}
+		}
+		return result;
+	}
+
+	private static final class Bands {
+		final int[] minPrices;
+		final int[] percents;
+		final int[] fixAmounts;
+
+		Bands(int[] minPrices, int[] percents, int[] fixAmounts) {
+			this.minPrices = minPrices;
+			this.percents = percents;
+			this.fixAmounts = fixAmounts;
+		}
+
+		static Bands of(List<DiscountRule> rules) {
+			//정렬이 안정적이므로 같은 minPrice 중 마지막 규칙이 뒤에 온다
+			List<DiscountRule> sorted = new ArrayList<>(rules);
+			sorted.sort(Comparator.comparingInt(DiscountRule::getMinPrice));
+
+			List<DiscountRule> distinct = new ArrayList<>();
+			for (DiscountRule rule : sorted) {
+				int last = distinct.size() - 1;
+				if (last >= 0 && distinct.get(last).getMinPrice() == rule.getMinPrice()) {
+					distinct.set(last, rule);
+				} else {
+					distinct.add(rule);
+				}
+			}
+
+			int size = distinct.size();
+			int[] minPrices = new int[size];
+			int[] percents = new int[size];
+			int[] fixAmounts = new int[size];
+			for (int i = 0; i < size; i++) {
+				DiscountRule rule = distinct.get(i);
+				minPrices[i] = rule.getMinPrice();
+				percents[i] = rule.getPercent();
+				fixAmounts[i] = rule.getFixAmount();
+			}
+			return new Bands(minPrices, percents, fixAmounts);
+		}
+
+		//가장 낮은 구간보다 싸면 어느 구간에도 들지 않는다
+		boolean covers(int price) {
+			return price >= minPrices[0];
+		}
+
+		int discount(int price) {
+			int band = findBand(price);
+			if (band < 0) {
+				return 0;
+			}
+			long discount = (long) price * percents[band] / 100 + fixAmounts[band];
+			return (int) Math.min(discount, price);
+		}
+
+		//price 이하인 minPrice 중 가장 큰 구간, 없으면 -1
+		private int findBand(int price) {
+			int low = 0;
+			int high = minPrices.length - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				if (minPrices[mid] <= price) {
+					low = mid + 1;
+				} else {
+					high = mid - 1;
+				}
+			}
+			return high;
+		}
+	}
+}
@@ -20,4 +20,12 @@ public class FixDiscountPolicy implements DiscountPolicy {
 		return 0;
 	}
 
+	@Override
+	public void discountAll(Grade[] grades, String[] itemNames, int[] prices, int[] discounts) {
+		int amount = discountFixAmount;
+		for (int i = 0; i < prices.length; i++) {
+			discounts[i] = grades[i] == Grade.VIP ? amount : 0;
+		}
+	}
+
 }
@@ -20,4 +20,12 @@ public class RateDiscountPolicy implements DiscountPolicy {
 		return 0;
 	}
 
+	@Override
+	public void discountAll(Grade[] grades, String[] itemNames, int[] prices, int[] discounts) {
+		int percent = discountPercent;
+		for (int i = 0; i < prices.length; i++) {
+			discounts[i] = grades[i] == Grade.VIP ? prices[i] * percent / 100 : 0;
+		}
+	}
+
 }
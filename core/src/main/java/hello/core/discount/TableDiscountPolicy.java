@@ -0,0 +1,51 @@
+package hello.core.discount;
+
+import java.util.List;
+
+import hello.core.member.Grade;
+import hello.core.member.Member;
+
+/**
+ * DiscountRuleTable 로 할인을 계산하는 정책.
+ * reload 로 규칙을 바꾸면 새 테이블을 다 만든 뒤 한 번에 교체하므로, 컨텍스트 재시작 없이 적용된다.
+ * 기본 규칙은 RateDiscountPolicy 와 같다(VIP 10%).
+ * 컴포넌트 스캔 대상이 아니다. 주문 할인은 @MainDiscountPolicy 가 정하므로, 쓰려면 직접 만들어 OrderServiceImpl 에 넘긴다.
+ */
+public class TableDiscountPolicy implements DiscountPolicy {
+
+	private volatile DiscountRuleTable table;
+
+	public TableDiscountPolicy() {
+		this(List.of(DiscountRule.rate(Grade.VIP, 0, 10)));
+	}
+
+	public TableDiscountPolicy(List<DiscountRule> rules) {
+		this.table = DiscountRuleTable.compile(rules);
+	}
+
+	public void reload(List<DiscountRule> rules) {
+		this.table = DiscountRuleTable.compile(rules);
+	}
+
+	public DiscountRuleTable getTable() {
+		return table;
+	}
+
+	@Override
+	public int discount(Member member, int price) {
+		return table.discount(member.getGrade(), null, price);
+	}
+
+	@Override
+	public int discount(Member member, String itemName, int price) {
+		return table.discount(member.getGrade(), itemName, price);
+	}
+
+	@Override
+	public void discountAll(Grade[] grades, String[] itemNames, int[] prices, int[] discounts) {
+		DiscountRuleTable current = table;
+		for (int i = 0; i < prices.length; i++) {
+			discounts[i] = current.discount(grades[i], itemNames[i], prices[i]);
+		}
+	}
+}
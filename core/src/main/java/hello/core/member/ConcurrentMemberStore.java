@@ -0,0 +1,149 @@
+package hello.core.member;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * long 키 기반 open addressing(linear probing) 회원 저장소.
+ * <p>
+ * 키를 stripe 단위로 나눠 쓰기는 stripe 락으로 직렬화하고, 읽기는 락 없이 수행한다.
+ * 슬롯의 key 를 먼저 쓰고 value 를 volatile 로 쓰기 때문에, value 가 보이면 같은 슬롯의 key 도 보인다.
+ * 삭제는 지원하지 않는다(MemberRepository 에 삭제가 없다).
+ */
+public class ConcurrentMemberStore {
+
+	private static final int STRIPE_COUNT = 16;
+	private static final int DEFAULT_STRIPE_CAPACITY = 64;
+
+	private final Stripe[] stripes;
+
+	public ConcurrentMemberStore() {
+		this(DEFAULT_STRIPE_CAPACITY);
+	}
+
+	public ConcurrentMemberStore(int initialStripeCapacity) {
+		int capacity = tableSizeFor(Math.max(initialStripeCapacity, 2));
+		this.stripes = new Stripe[STRIPE_COUNT];
+		for (int i = 0; i < STRIPE_COUNT; i++) {
+			stripes[i] = new Stripe(capacity);
+		}
+	}
+
+	public Member get(long key) {
+		long hash = mix(key);
+		return stripeFor(hash).get(key, hash);
+	}
+
+	public void put(long key, Member member) {
+		if (member == null) {
+			throw new IllegalArgumentException("member is null");
+		}
+		long hash = mix(key);
+		stripeFor(hash).put(key, hash, member);
+	}
+
+	public int size() {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			size += stripe.size;
+		}
+		return size;
+	}
+
+	private Stripe stripeFor(long hash) {
+		// 상위 비트로 stripe 를, 하위 비트로 슬롯을 고른다
+		return stripes[(int) (hash >>> 60) & (STRIPE_COUNT - 1)];
+	}
+
+	private static long mix(long key) {
+		// murmur3 fmix64
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return key;
+	}
+
+	private static int tableSizeFor(int capacity) {
+		int n = Integer.highestOneBit(capacity - 1) << 1;
+		return n <= 0 ? 1 << 30 : n;
+	}
+
+	private static final class Table {
+		final long[] keys;
+		final AtomicReferenceArray<Member> values;
+		final int mask;
+
+		Table(int capacity) {
+			this.keys = new long[capacity];
+			this.values = new AtomicReferenceArray<>(capacity);
+			this.mask = capacity - 1;
+		}
+	}
+
+	private static final class Stripe {
+		private volatile Table table;
+		private volatile int size;
+
+		Stripe(int capacity) {
+			this.table = new Table(capacity);
+		}
+
+		Member get(long key, long hash) {
+			Table t = table;
+			int i = (int) hash & t.mask;
+			while (true) {
+				Member value = t.values.get(i);
+				if (value == null) {
+					return null;
+				}
+				if (t.keys[i] == key) {
+					return value;
+				}
+				i = (i + 1) & t.mask;
+			}
+		}
+
+		synchronized void put(long key, long hash, Member member) {
+			Table t = table;
+			int i = (int) hash & t.mask;
+			while (t.values.get(i) != null) {
+				if (t.keys[i] == key) {
+					t.values.set(i, member);
+					return;
+				}
+				i = (i + 1) & t.mask;
+			}
+			// 로드 팩터 0.5 를 넘기면 새 테이블로 옮긴 뒤 한 번에 교체한다
+			if ((size + 1) << 1 > t.keys.length) {
+				t = resize(t);
+				i = (int) hash & t.mask;
+				while (t.values.get(i) != null) {
+					i = (i + 1) & t.mask;
+				}
+			}
+			t.keys[i] = key;
+			t.values.set(i, member);
+			size = size + 1;
+		}
+
+		private Table resize(Table old) {
+			Table next = new Table(old.keys.length << 1);
+			for (int j = 0; j < old.keys.length; j++) {
+				Member value = old.values.get(j);
+				if (value == null) {
+					continue;
+				}
+				long key = old.keys[j];
+				int i = (int) mix(key) & next.mask;
+				while (next.values.get(i) != null) {
+					i = (i + 1) & next.mask;
+				}
+				next.keys[i] = key;
+				next.values.lazySet(i, value);
+			}
+			table = next;
+			return next;
+		}
+	}
+}
@@ -0,0 +1,231 @@
+package hello.core.member;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 재시작해도 회원이 남는 MemberRepository.
+ * <p>
+ * 두 파일을 쓴다.
+ * <ul>
+ * <li>members.dat: 32바이트 고정 길이 레코드(id, 이름 위치, 이름 길이, 등급, 커밋 표시, CRC32)를 메모리 매핑해 순서대로 추가</li>
+ * <li>names.log: 이름 바이트(UTF-8)를 뒤에 덧붙이기만 하는 로그</li>
+ * </ul>
+ * 이름을 먼저 쓰고 레코드 필드와 CRC 를 채운 뒤 마지막에 커밋 표시를 쓴다. OS 는 매핑된 페이지를 어떤 순서로든
+ * 디스크에 내릴 수 있으므로 커밋 표시만으로는 부족하다. 기동 시 레코드를 앞에서부터 한 번 읽어 커밋 표시가 없거나
+ * CRC(레코드 필드 + 이름 바이트)가 맞지 않는 첫 레코드(쓰다 죽은 꼬리)에서 멈추고 메모리 인덱스를 다시 만든다.
+ * 레코드 크기가 4KiB 페이지를 나누어떨어지게 하므로 한 레코드가 두 페이지에 걸치지 않는다.
+ * 같은 id 를 다시 save 하면 새 레코드가 추가되고 나중 레코드가 이긴다.
+ * <p>
+ * 레코드 파일은 2MiB 구간 단위로 매핑을 덧붙여 키운다. 다시 매핑하지 않으므로 버려지는 매핑이 없다.
+ * <p>
+ * syncOnWrite 가 false 면 프로세스가 죽어도 OS 페이지 캐시에 남은 기록은 살아남지만, 전원 장애까지 견디려면 true 로 연다.
+ * true 면 레코드 필드를 먼저 디스크에 내리고 나서 커밋 표시를 쓰고 다시 내린다.
+ */
+public class MappedMemberRepository implements MemberRepository, Closeable {
+
+	static final String RECORD_FILE = "members.dat";
+	static final String NAME_FILE = "names.log";
+	static final int RECORD_SIZE = 32;
+	private static final int COMMIT_OFFSET = 21;
+	private static final int CRC_OFFSET = 24;
+	private static final byte COMMITTED = 1;
+	private static final int SEGMENT_SHIFT = 16;
+	private static final int SEGMENT_RECORDS = 1 << SEGMENT_SHIFT;
+	private static final long SEGMENT_BYTES = (long) SEGMENT_RECORDS * RECORD_SIZE;
+	private static final Grade[] GRADES = Grade.values();
+
+	private final FileChannel recordChannel;
+	private final FileChannel nameChannel;
+	private final boolean syncOnWrite;
+	private final ConcurrentMemberStore index;
+	private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+	private int recordCount;
+	private long nameLogSize;
+
+	public MappedMemberRepository(Path directory) {
+		this(directory, false);
+	}
+
+	public MappedMemberRepository(Path directory, boolean syncOnWrite) {
+		this.syncOnWrite = syncOnWrite;
+		try {
+			Files.createDirectories(directory);
+			this.recordChannel = FileChannel.open(directory.resolve(RECORD_FILE), StandardOpenOption.CREATE,
+					StandardOpenOption.READ, StandardOpenOption.WRITE);
+			this.nameChannel = FileChannel.open(directory.resolve(NAME_FILE), StandardOpenOption.CREATE,
+					StandardOpenOption.READ, StandardOpenOption.WRITE);
+			long fileRecords = recordChannel.size() / RECORD_SIZE;
+			ensureCapacity((int) Math.max(1, Math.min(fileRecords, Integer.MAX_VALUE)));
+			//복구 중 인덱스 확장이 없도록 파일 크기 기준으로 미리 잡는다(stripe 16개, 로드 팩터 0.5)
+			this.index = new ConcurrentMemberStore(capacity() / 8);
+			recover();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void recover() throws IOException {
+		long nameSize = nameChannel.size();
+		if (nameSize > Integer.MAX_VALUE) {
+			throw new IllegalStateException(NAME_FILE + " too large: " + nameSize);
+		}
+		ByteBuffer names = nameChannel.map(FileChannel.MapMode.READ_ONLY, 0, nameSize);
+		long validNameEnd = 0;
+		int count = 0;
+		int capacity = capacity();
+		while (count < capacity) {
+			MappedByteBuffer segment = segment(count);
+			int base = offset(count);
+			if (segment.get(base + COMMIT_OFFSET) != COMMITTED) {
+				break;
+			}
+			long id = segment.getLong(base);
+			long nameOffset = segment.getLong(base + 8);
+			int nameLength = segment.getInt(base + 16);
+			int grade = segment.get(base + 20);
+			if (nameOffset < 0 || nameLength < 0 || nameOffset + nameLength > nameSize || grade < 0
+					|| grade >= GRADES.length) {
+				break;
+			}
+			byte[] nameBytes = new byte[nameLength];
+			names.get((int) nameOffset, nameBytes);
+			if (segment.getInt(base + CRC_OFFSET) != checksum(segment, base, nameBytes)) {
+				break;
+			}
+			index.put(id, new Member(id, new String(nameBytes, StandardCharsets.UTF_8), GRADES[grade]));
+			validNameEnd = Math.max(validNameEnd, nameOffset + nameLength);
+			count++;
+		}
+		this.recordCount = count;
+		//쓰다 만 레코드는 하나뿐이다(쓰기는 한 스레드씩), 지워서 다음 기록이 덮어쓰게 한다
+		if (count < capacity) {
+			MappedByteBuffer segment = segment(count);
+			int base = offset(count);
+			for (int i = base; i < base + RECORD_SIZE; i++) {
+				segment.put(i, (byte) 0);
+			}
+		}
+		this.nameLogSize = validNameEnd;
+		nameChannel.truncate(validNameEnd);
+	}
+
+	@Override
+	public synchronized void save(Member member) {
+		if (member.getId() == null || member.getGrade() == null) {
+			throw new IllegalArgumentException("member id and grade are required");
+		}
+		byte[] nameBytes = member.getName() == null ? new byte[0] : member.getName().getBytes(StandardCharsets.UTF_8);
+		try {
+			long nameOffset = nameLogSize;
+			ByteBuffer nameBuffer = ByteBuffer.wrap(nameBytes);
+			while (nameBuffer.hasRemaining()) {
+				nameChannel.write(nameBuffer, nameOffset + nameBuffer.position());
+			}
+			if (syncOnWrite) {
+				nameChannel.force(false);
+			}
+			nameLogSize += nameBytes.length;
+
+			ensureCapacity(recordCount + 1);
+			MappedByteBuffer segment = segment(recordCount);
+			int base = offset(recordCount);
+			segment.putLong(base, member.getId());
+			segment.putLong(base + 8, nameOffset);
+			segment.putInt(base + 16, nameBytes.length);
+			segment.put(base + 20, (byte) member.getGrade().ordinal());
+			segment.putInt(base + CRC_OFFSET, checksum(segment, base, nameBytes));
+			if (syncOnWrite) {
+				//필드가 디스크에 내려간 뒤에야 커밋 표시를 쓴다
+				segment.force(base, RECORD_SIZE);
+			}
+			segment.put(base + COMMIT_OFFSET, COMMITTED);
+			if (syncOnWrite) {
+				segment.force(base, RECORD_SIZE);
+			}
+			recordCount++;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		index.put(member.getId(), member);
+	}
+
+	//레코드 필드(id, 이름 위치, 이름 길이, 등급)와 이름 바이트
+	private static int checksum(MappedByteBuffer segment, int base, byte[] nameBytes) {
+		CRC32 crc = new CRC32();
+		crc.update(segment.slice(base, COMMIT_OFFSET));
+		crc.update(nameBytes);
+		return (int) crc.getValue();
+	}
+
+	@Override
+	public Member findById(Long memberId) {
+		if (memberId == null) {
+			return null;
+		}
+		return index.get(memberId);
+	}
+
+	@Override
+	public Member[] findAllById(long[] memberIds) {
+		Member[] members = new Member[memberIds.length];
+		for (int i = 0; i < memberIds.length; i++) {
+			members[i] = index.get(memberIds[i]);
+		}
+		return members;
+	}
+
+	//같은 id 의 이전 레코드도 포함한 레코드 수
+	public synchronized int getRecordCount() {
+		return recordCount;
+	}
+
+	public int size() {
+		return index.size();
+	}
+
+	private MappedByteBuffer segment(int record) {
+		return segments.get(record >>> SEGMENT_SHIFT);
+	}
+
+	private static int offset(int record) {
+		return (record & (SEGMENT_RECORDS - 1)) * RECORD_SIZE;
+	}
+
+	private int capacity() {
+		return segments.size() * SEGMENT_RECORDS;
+	}
+
+	//모자라면 파일 뒤에 구간 매핑을 덧붙인다, 기존 매핑은 그대로 쓴다
+	private void ensureCapacity(int requiredRecords) throws IOException {
+		while (capacity() < requiredRecords) {
+			long position = segments.size() * SEGMENT_BYTES;
+			if (position + SEGMENT_BYTES > (long) Integer.MAX_VALUE * RECORD_SIZE) {
+				throw new IllegalStateException(RECORD_FILE + " too large: " + position);
+			}
+			segments.add(recordChannel.map(FileChannel.MapMode.READ_WRITE, position, SEGMENT_BYTES));
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		for (MappedByteBuffer segment : segments) {
+			segment.force();
+		}
+		nameChannel.force(true);
+		recordChannel.close();
+		nameChannel.close();
+	}
+}
@@ -5,4 +5,13 @@ public interface MemberRepository {
 	void save(Member member);
 	
 	Member findById(Long memberId);
+
+	//여러 회원을 한 번에 조회, 없는 회원은 null
+	default Member[] findAllById(long[] memberIds) {
+		Member[] members = new Member[memberIds.length];
+		for (int i = 0; i < memberIds.length; i++) {
+			members[i] = findById(memberIds[i]);
+		}
+		return members;
+	}
 }
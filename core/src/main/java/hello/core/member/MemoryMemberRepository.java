@@ -1,14 +1,13 @@
 package hello.core.member;
 
-import java.util.*;
-
 import org.springframework.stereotype.Component;
 
 @Component
 public class MemoryMemberRepository implements MemberRepository{
 
-	private static Map<Long, Member> store = new HashMap<>();
-	
+	//여러 요청 스레드가 동시에 save 해도 안전하고, 조회 시 Long 키 박싱이 없다
+	private static final ConcurrentMemberStore store = new ConcurrentMemberStore();
+
 	@Override
 	public void save(Member member) {
 		store.put(member.getId(), member);
@@ -16,7 +15,19 @@ public class MemoryMemberRepository implements MemberRepository{
 
 	@Override
 	public Member findById(Long memberId) {
+		if (memberId == null) {
+			return null;
+		}
 		return store.get(memberId);
 	}
 
+	@Override
+	public Member[] findAllById(long[] memberIds) {
+		Member[] members = new Member[memberIds.length];
+		for (int i = 0; i < memberIds.length; i++) {
+			members[i] = store.get(memberIds[i]);
+		}
+		return members;
+	}
+
 }
@@ -0,0 +1,42 @@
+package hello.core.order;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 문자열 key 의 출현 횟수를 고정 메모리로 근사하는 Count-Min sketch.
+ * 추정값은 실제 횟수보다 작지 않다(충돌한 다른 key 의 횟수만큼 클 수 있다).
+ * 여러 스레드가 잠금 없이 더한다.
+ */
+class CountMinSketch {
+
+	private static final int DEPTH = 4;
+
+	private final AtomicIntegerArray counters;
+	private final int mask;
+
+	//width 는 2의 거듭제곱으로 올림
+	CountMinSketch(int width) {
+		int size = Math.max(64, Integer.highestOneBit(Math.max(1, width - 1)) << 1);
+		this.mask = size - 1;
+		this.counters = new AtomicIntegerArray(DEPTH * size);
+	}
+
+	//하나 더하고 더한 뒤의 추정값을 돌려준다
+	int increment(String key) {
+		int hash = key.hashCode();
+		int estimate = Integer.MAX_VALUE;
+		for (int row = 0; row < DEPTH; row++) {
+			int index = row * (mask + 1) + (mix(hash, row) & mask);
+			estimate = Math.min(estimate, counters.incrementAndGet(index));
+		}
+		return estimate;
+	}
+
+	private static int mix(int hash, int row) {
+		int h = hash * 0x9E3779B9 + row * 0x85EBCA6B;
+		h ^= h >>> 16;
+		h *= 0x7FEB352D;
+		h ^= h >>> 15;
+		return h;
+	}
+}
@@ -0,0 +1,251 @@
+package hello.core.order;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import hello.core.member.Grade;
+
+/**
+ * 생성된 주문을 등급별, 상품별로 실시간 집계한다.
+ * <p>
+ * 주문 경로에서는 LongAdder 에 더하기만 하고, 합산은 snapshot() 을 부르는 쪽에서 한다.
+ * 상품별 집계는 많이 팔린 상품 maxItems 개만 둔다. 추적하지 않는 상품은 Count-Min sketch 로 주문 수만 근사하다가
+ * 무작위로 고른 추적 중인 상품 몇 개 중 가장 적게 팔린 것보다 많아지면 그 자리를 빼앗는다(표본 축출).
+ * 늦게 뜬 상품도 상위 목록에 들어온다. 주문 경로는 잠금을 기다리지 않는다. 자리 교체는 CAS 로 한 스레드만 하고,
+ * 교체 중에 들어온 다른 상품의 주문은 기다리지 않고 OTHER_ITEMS 로 센다.
+ * 추적하지 않는 상품의 주문은 OTHER_ITEMS 로 보인다(전체 합계 - 추적 중인 상품 합계).
+ * 상품별 집계는 추적을 시작한 뒤의 주문만 담고, 순위는 그 전의 근사 주문 수까지 더해 매긴다.
+ */
+//AppConfig 의 memoryOrderAnalytics 와 함께 스캔되면 이 빈을 주입한다
+@Primary
+@Component
+public class OrderAnalytics {
+
+	public static final String OTHER_ITEMS = "(other)";
+	private static final int DEFAULT_MAX_ITEMS = 10_000;
+	private static final int SAMPLE_SIZE = 8;
+
+	private final OrderStats[] byGrade;
+	private final ConcurrentHashMap<String, ItemSlot> byItem = new ConcurrentHashMap<>();
+	private final CountMinSketch untracked;
+	private final int maxItems;
+	//자리 교체용, byItem 과 같은 slot 을 가리킨다. 앞에서부터 filled 개가 차 있다
+	private final AtomicReferenceArray<ItemSlot> slots;
+	private volatile int filled;
+	//자리를 바꾸는 스레드는 하나뿐, 다른 스레드는 기다리지 않고 건너뛴다
+	private final AtomicBoolean admitting = new AtomicBoolean();
+
+	public OrderAnalytics() {
+		this(DEFAULT_MAX_ITEMS);
+	}
+
+	public OrderAnalytics(int maxItems) {
+		if (maxItems < 1) {
+			throw new IllegalArgumentException("maxItems must be positive");
+		}
+		this.maxItems = maxItems;
+		this.untracked = new CountMinSketch(maxItems * 4);
+		this.slots = new AtomicReferenceArray<>(maxItems);
+		this.byGrade = new OrderStats[Grade.values().length];
+		for (int i = 0; i < byGrade.length; i++) {
+			byGrade[i] = new OrderStats();
+		}
+	}
+
+	public void record(Grade grade, String itemName, int itemPrice, int discountPrice) {
+		byGrade[grade.ordinal()].record(itemPrice, discountPrice);
+		ItemSlot slot = byItem.get(itemName);
+		if (slot == null) {
+			slot = tryAdmit(itemName, untracked.increment(itemName));
+			if (slot == null) {
+				return;
+			}
+		}
+		slot.stats.record(itemPrice, discountPrice);
+	}
+
+	public void record(Grade[] grades, OrderBatch batch) {
+		for (int i = 0; i < batch.size(); i++) {
+			record(grades[i], batch.getItemName(i), batch.getItemPrice(i), batch.getDiscountPrice(i));
+		}
+	}
+
+	/*
+	 * 빈 자리가 있거나, 무작위로 고른 자리 중 estimate 보다 적게 팔린 것이 있으면 추적을 시작한다. 아니면 null
+	 * 다른 주문 스레드가 자리를 바꾸는 중이면 기다리지 않고 이번 주문은 OTHER_ITEMS 로 둔다.
+	 */
+	private ItemSlot tryAdmit(String itemName, int estimate) {
+		int victim = -1;
+		if (filled >= maxItems) {
+			victim = sampleLowest(estimate);
+			if (victim < 0) {
+				return null;
+			}
+		}
+		if (!admitting.compareAndSet(false, true)) {
+			return null;
+		}
+		try {
+			ItemSlot slot = byItem.get(itemName);
+			if (slot != null) {
+				return slot;
+			}
+			//estimate 에는 지금 주문도 들어 있고, 지금 주문은 새 자리에 기록한다
+			slot = new ItemSlot(itemName, estimate - 1);
+			if (filled < maxItems) {
+				slots.set(filled, slot);
+				byItem.put(itemName, slot);
+				filled++;
+				return slot;
+			}
+			ItemSlot old = victim < 0 ? null : slots.get(victim);
+			if (old == null || old.rank() >= estimate) {
+				return null;
+			}
+			//밀려난 상품의 주문은 합계 차이로 OTHER_ITEMS 에 남는다
+			byItem.remove(old.name);
+			byItem.put(itemName, slot);
+			slots.set(victim, slot);
+			return slot;
+		} finally {
+			admitting.set(false);
+		}
+	}
+
+	//SAMPLE_SIZE 개 자리 중 estimate 보다 순위가 낮은 가장 낮은 자리, 없으면 -1
+	private int sampleLowest(int estimate) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int victim = -1;
+		long lowest = estimate;
+		for (int i = 0; i < Math.min(SAMPLE_SIZE, maxItems); i++) {
+			int index = maxItems <= SAMPLE_SIZE ? i : random.nextInt(maxItems);
+			long rank = slots.get(index).rank();
+			if (rank < lowest) {
+				lowest = rank;
+				victim = index;
+			}
+		}
+		return victim;
+	}
+
+	public Snapshot snapshot(int topK) {
+		//추적 중인 상품을 먼저 읽어야 전체 합계가 그보다 작지 않다
+		List<RankedItem> items = new ArrayList<>(byItem.size() + 1);
+		byItem.forEach((name, slot) -> {
+			OrderStats.Snapshot stats = slot.stats.snapshot();
+			items.add(new RankedItem(name, stats, slot.base + stats.getCount()));
+		});
+
+		Map<Grade, OrderStats.Snapshot> grades = new EnumMap<>(Grade.class);
+		for (Grade grade : Grade.values()) {
+			grades.put(grade, byGrade[grade.ordinal()].snapshot());
+		}
+		OrderStats.Snapshot other = other(grades.values(), items);
+		items.sort((a, b) -> Long.compare(b.rank, a.rank));
+
+		Map<String, OrderStats.Snapshot> itemMap = new LinkedHashMap<>();
+		List<String> topItems = new ArrayList<>();
+		for (RankedItem item : items) {
+			itemMap.put(item.name, item.stats);
+			if (topItems.size() < topK) {
+				topItems.add(item.name);
+			}
+		}
+		if (other.getCount() > 0) {
+			itemMap.put(OTHER_ITEMS, other);
+		}
+		return new Snapshot(grades, itemMap, topItems);
+	}
+
+	private static OrderStats.Snapshot other(Collection<OrderStats.Snapshot> totals, List<RankedItem> tracked) {
+		long count = 0;
+		long gross = 0;
+		long discount = 0;
+		long[] buckets = new long[OrderStats.BUCKET_COUNT];
+		for (OrderStats.Snapshot total : totals) {
+			count += total.getCount();
+			gross += total.getGross();
+			discount += total.getDiscount();
+			long[] totalBuckets = total.getPriceBuckets();
+			for (int i = 0; i < buckets.length; i++) {
+				buckets[i] += totalBuckets[i];
+			}
+		}
+		for (RankedItem item : tracked) {
+			count -= item.stats.getCount();
+			gross -= item.stats.getGross();
+			discount -= item.stats.getDiscount();
+			long[] itemBuckets = item.stats.getPriceBuckets();
+			for (int i = 0; i < buckets.length; i++) {
+				buckets[i] -= itemBuckets[i];
+			}
+		}
+		return new OrderStats.Snapshot(count, gross, discount, buckets);
+	}
+
+	private static class ItemSlot {
+		final String name;
+		final OrderStats stats = new OrderStats();
+		//추적을 시작하기 전의 근사 주문 수
+		final long base;
+
+		ItemSlot(String name, long base) {
+			this.name = name;
+			this.base = base;
+		}
+
+		long rank() {
+			return base + stats.count();
+		}
+	}
+
+	private static class RankedItem {
+		final String name;
+		final OrderStats.Snapshot stats;
+		final long rank;
+
+		RankedItem(String name, OrderStats.Snapshot stats, long rank) {
+			this.name = name;
+			this.stats = stats;
+			this.rank = rank;
+		}
+	}
+
+	public static class Snapshot {
+		private final Map<Grade, OrderStats.Snapshot> byGrade;
+		private final Map<String, OrderStats.Snapshot> byItem;
+		private final List<String> topItems;
+
+		Snapshot(Map<Grade, OrderStats.Snapshot> byGrade, Map<String, OrderStats.Snapshot> byItem,
+				List<String> topItems) {
+			this.byGrade = Collections.unmodifiableMap(byGrade);
+			this.byItem = Collections.unmodifiableMap(byItem);
+			this.topItems = Collections.unmodifiableList(topItems);
+		}
+
+		public Map<Grade, OrderStats.Snapshot> getByGrade() {
+			return byGrade;
+		}
+
+		//추적 중인 상품을 근사 주문 수 내림차순으로, 마지막에 OTHER_ITEMS
+		public Map<String, OrderStats.Snapshot> getByItem() {
+			return byItem;
+		}
+
+		public List<String> getTopItems() {
+			return topItems;
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package hello.core.order;
+
+/**
+ * 여러 주문을 컬럼(배열) 단위로 담는다. 주문 한 건마다 Order 객체를 만들지 않는다.
+ * 같은 인덱스가 같은 주문이다.
+ */
+public class OrderBatch {
+
+	private final long[] memberIds;
+	private final String[] itemNames;
+	private final int[] itemPrices;
+	private final int[] discountPrices;
+
+	public OrderBatch(long[] memberIds, String[] itemNames, int[] itemPrices, int[] discountPrices) {
+		if (memberIds.length != itemNames.length || memberIds.length != itemPrices.length
+				|| memberIds.length != discountPrices.length) {
+			throw new IllegalArgumentException("column length mismatch");
+		}
+		this.memberIds = memberIds;
+		this.itemNames = itemNames;
+		this.itemPrices = itemPrices;
+		this.discountPrices = discountPrices;
+	}
+
+	public int size() {
+		return memberIds.length;
+	}
+
+	public long getMemberId(int index) {
+		return memberIds[index];
+	}
+
+	public String getItemName(int index) {
+		return itemNames[index];
+	}
+
+	public int getItemPrice(int index) {
+		return itemPrices[index];
+	}
+
+	public int getDiscountPrice(int index) {
+		return discountPrices[index];
+	}
+
+	public int calculatePrice(int index) {
+		return itemPrices[index] - discountPrices[index];
+	}
+
+	public long totalPrice() {
+		long total = 0;
+		for (int i = 0; i < itemPrices.length; i++) {
+			total += itemPrices[i] - discountPrices[i];
+		}
+		return total;
+	}
+
+	//필요한 경우에만 한 건을 Order 로 꺼낸다
+	public Order toOrder(int index) {
+		return new Order(memberIds[index], itemNames[index], itemPrices[index], discountPrices[index]);
+	}
+}
@@ -3,4 +3,7 @@ package hello.core.order;
 public interface OrderService {
 
 	Order createOrder(Long memberId, String itemName, int itemPrice);
+
+	//같은 인덱스가 한 주문, 결과는 컬럼 단위로 돌려준다
+	OrderBatch createOrders(long[] memberIds, String[] itemNames, int[] itemPrices);
 }
@@ -11,19 +11,45 @@ public class OrderServiceImpl implements OrderService {
 
 	private final MemberRepository memberRepository;
 	private final DiscountPolicy discountPolicy;
+	private final OrderAnalytics orderAnalytics;
 
-	public OrderServiceImpl(MemberRepository memberRepository, @MainDiscountPolicy DiscountPolicy discountPolicy) {
+	public OrderServiceImpl(MemberRepository memberRepository, @MainDiscountPolicy DiscountPolicy discountPolicy,
+			OrderAnalytics orderAnalytics) {
 		this.memberRepository = memberRepository;
 		this.discountPolicy = discountPolicy;
+		this.orderAnalytics = orderAnalytics;
 	}
 
 	@Override
 	public Order createOrder(Long memberId, String itemName, int itemPrice) {
 		Member member = memberRepository.findById(memberId);
-		int discountPrice = discountPolicy.discount(member, itemPrice);
+		int discountPrice = discountPolicy.discount(member, itemName, itemPrice);
+		orderAnalytics.record(member.getGrade(), itemName, itemPrice, discountPrice);
 
 		return new Order(memberId, itemName, itemPrice, discountPrice);
 	}
+
+	@Override
+	public OrderBatch createOrders(long[] memberIds, String[] itemNames, int[] itemPrices) {
+		if (memberIds.length != itemNames.length || memberIds.length != itemPrices.length) {
+			throw new IllegalArgumentException("column length mismatch");
+		}
+		Member[] members = memberRepository.findAllById(memberIds);
+		Grade[] grades = new Grade[members.length];
+		for (int i = 0; i < members.length; i++) {
+			if (members[i] == null) {
+				throw new IllegalArgumentException("member not found: " + memberIds[i]);
+			}
+			grades[i] = members[i].getGrade();
+		}
+
+		int[] discountPrices = new int[itemPrices.length];
+		discountPolicy.discountAll(grades, itemNames, itemPrices, discountPrices);
+
+		OrderBatch batch = new OrderBatch(memberIds, itemNames, itemPrices, discountPrices);
+		orderAnalytics.record(grades, batch);
+		return batch;
+	}
 	
 	//테스트 용도
 	public MemberRepository getMemberRepository() {
@@ -0,0 +1,109 @@
+package hello.core.order;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 주문 누적 집계 한 묶음(건수, 총액, 할인액, 가격 분포).
+ * 모든 값이 LongAdder 라서 여러 주문 스레드가 동시에 더해도 경합이 없다.
+ * 가격 분포는 2의 거듭제곱 구간(0, 1, 2~3, 4~7, ...) 히스토그램이다.
+ */
+public class OrderStats {
+
+	static final int BUCKET_COUNT = 33;
+
+	private final LongAdder count = new LongAdder();
+	private final LongAdder gross = new LongAdder();
+	private final LongAdder discount = new LongAdder();
+	private final LongAdder[] priceBuckets = new LongAdder[BUCKET_COUNT];
+
+	public OrderStats() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			priceBuckets[i] = new LongAdder();
+		}
+	}
+
+	public void record(int itemPrice, int discountPrice) {
+		count.increment();
+		gross.add(itemPrice);
+		discount.add(discountPrice);
+		priceBuckets[bucketOf(itemPrice)].increment();
+	}
+
+	public Snapshot snapshot() {
+		long[] buckets = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			buckets[i] = priceBuckets[i].sum();
+		}
+		return new Snapshot(count.sum(), gross.sum(), discount.sum(), buckets);
+	}
+
+	long count() {
+		return count.sum();
+	}
+
+	static int bucketOf(int price) {
+		return price <= 0 ? 0 : 32 - Integer.numberOfLeadingZeros(price);
+	}
+
+	//bucket 의 하한 가격
+	static long bucketLowerBound(int bucket) {
+		return bucket == 0 ? 0 : 1L << (bucket - 1);
+	}
+
+	public static class Snapshot {
+		private final long count;
+		private final long gross;
+		private final long discount;
+		private final long[] priceBuckets;
+
+		Snapshot(long count, long gross, long discount, long[] priceBuckets) {
+			this.count = count;
+			this.gross = gross;
+			this.discount = discount;
+			this.priceBuckets = priceBuckets;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getGross() {
+			return gross;
+		}
+
+		public long getDiscount() {
+			return discount;
+		}
+
+		public long getNet() {
+			return gross - discount;
+		}
+
+		/**
+		 * 근사 분위 가격(해당 구간의 하한). 0 <= quantile <= 1
+		 */
+		public long priceQuantile(double quantile) {
+			if (count == 0) {
+				return 0;
+			}
+			long target = (long) Math.ceil(quantile * count);
+			long seen = 0;
+			for (int i = 0; i < priceBuckets.length; i++) {
+				seen += priceBuckets[i];
+				if (seen >= target && priceBuckets[i] > 0) {
+					return bucketLowerBound(i);
+				}
+			}
+			return bucketLowerBound(priceBuckets.length - 1);
+		}
+
+		public long[] getPriceBuckets() {
+			return priceBuckets.clone();
+		}
+
+		@Override
+		public String toString() {
+			return "Snapshot [count=" + count + ", gross=" + gross + ", discount=" + discount + "]";
+		}
+	}
+}
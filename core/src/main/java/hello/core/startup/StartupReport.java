@@ -0,0 +1,110 @@
+package hello.core.startup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline.TimelineEvent;
+import org.springframework.core.metrics.StartupStep;
+
+/**
+ * BufferingApplicationStartup 이 기록한 타임라인을 단계별, 빈별로 정리한다.
+ * <p>
+ * 빈 시간은 하위 단계(의존 빈 생성 등)를 뺀 자기 시간(self time) 기준이다.
+ */
+public class StartupReport {
+
+	private static final String BEAN_INSTANTIATE = "spring.beans.instantiate";
+
+	private final Map<String, Duration> phases;
+	private final List<BeanTime> beans;
+
+	private StartupReport(Map<String, Duration> phases, List<BeanTime> beans) {
+		this.phases = phases;
+		this.beans = beans;
+	}
+
+	public static StartupReport of(StartupTimeline timeline) {
+		List<TimelineEvent> events = timeline.getEvents();
+
+		Map<Long, Duration> childTime = new HashMap<>();
+		for (TimelineEvent event : events) {
+			Long parentId = event.getStartupStep().getParentId();
+			if (parentId != null) {
+				childTime.merge(parentId, event.getDuration(), Duration::plus);
+			}
+		}
+
+		Map<String, Duration> phases = new LinkedHashMap<>();
+		List<BeanTime> beans = new ArrayList<>();
+		for (TimelineEvent event : events) {
+			StartupStep step = event.getStartupStep();
+			if (BEAN_INSTANTIATE.equals(step.getName())) {
+				Duration self = event.getDuration().minus(childTime.getOrDefault(step.getId(), Duration.ZERO));
+				beans.add(new BeanTime(tag(step, "beanName"), event.getDuration(), self));
+			} else {
+				phases.merge(step.getName(), event.getDuration(), Duration::plus);
+			}
+		}
+		beans.sort((a, b) -> b.getSelf().compareTo(a.getSelf()));
+		return new StartupReport(phases, beans);
+	}
+
+	public Map<String, Duration> getPhases() {
+		return phases;
+	}
+
+	public List<BeanTime> getBeans() {
+		return beans;
+	}
+
+	public String format(int topBeans) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("=== startup phases ===\n");
+		phases.forEach((name, duration) -> sb.append(String.format("%8d ms  %s%n", duration.toMillis(), name)));
+		sb.append("=== slowest beans (self / total) ===\n");
+		for (int i = 0; i < Math.min(topBeans, beans.size()); i++) {
+			BeanTime bean = beans.get(i);
+			sb.append(String.format("%8d ms / %8d ms  %s%n", bean.getSelf().toMillis(), bean.getTotal().toMillis(),
+					bean.getBeanName()));
+		}
+		return sb.toString();
+	}
+
+	private static String tag(StartupStep step, String key) {
+		for (StartupStep.Tag tag : step.getTags()) {
+			if (key.equals(tag.getKey())) {
+				return tag.getValue();
+			}
+		}
+		return "?";
+	}
+
+	public static class BeanTime {
+		private final String beanName;
+		private final Duration total;
+		private final Duration self;
+
+		public BeanTime(String beanName, Duration total, Duration self) {
+			this.beanName = beanName;
+			this.total = total;
+			this.self = self;
+		}
+
+		public String getBeanName() {
+			return beanName;
+		}
+
+		public Duration getTotal() {
+			return total;
+		}
+
+		public Duration getSelf() {
+			return self;
+		}
+	}
+}
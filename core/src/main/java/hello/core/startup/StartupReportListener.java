@@ -0,0 +1,30 @@
+package hello.core.startup;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+//core.startup.report=true 일 때 기동 완료 후 리포트 출력
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "core.startup.report", havingValue = "true")
+public class StartupReportListener implements ApplicationListener<ApplicationReadyEvent> {
+
+	private static final int TOP_BEANS = 20;
+
+	@Override
+	public void onApplicationEvent(ApplicationReadyEvent event) {
+		ApplicationStartup startup = event.getApplicationContext().getApplicationStartup();
+		if (!(startup instanceof BufferingApplicationStartup)) {
+			log.info("startup report skipped: ApplicationStartup is {}", startup.getClass().getSimpleName());
+			return;
+		}
+		StartupReport report = StartupReport.of(((BufferingApplicationStartup) startup).getBufferedTimeline());
+		log.info("startup report\n{}", report.format(TOP_BEANS));
+	}
+}
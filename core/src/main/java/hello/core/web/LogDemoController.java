@@ -5,6 +5,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
 
+import hello.core.common.ContextLogger;
 import hello.core.common.MyLogger;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
@@ -15,6 +16,7 @@ public class LogDemoController {
 
 	private final LogDemoService logDemoService;
 	private final MyLogger myLogger;
+	private final ContextLogger contextLogger;
 	
 	@RequestMapping("log-Demo")
 	@ResponseBody
@@ -27,4 +29,12 @@ public class LogDemoController {
 		logDemoService.logic("testId");
 		return "ok";
 	}
+	
+	//스코프 프록시 대신 RequestContextBindingFilter 가 바인딩한 요청 정보를 사용
+	@RequestMapping("log-context-demo")
+	@ResponseBody
+	public String logContextDemo() {
+		contextLogger.log("controller test");
+		return String.valueOf(contextLogger.getRequestId());
+	}
 }
@@ -0,0 +1,131 @@
+package hello.core.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class AsyncLogWriterTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void writeFromManyThreads() throws Exception {
+		Path file = tempDir.resolve("my-logger.log");
+		AsyncLogWriter logWriter = new AsyncLogWriter(file, 1 << 16);
+
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			long requestId = t;
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < 1000; i++) {
+					logWriter.write(requestId, "/log-Demo", "message " + i);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		logWriter.close();
+
+		List<String> lines = Files.readAllLines(file);
+		assertThat(logWriter.getDroppedCount()).isZero();
+		assertThat(lines).hasSize(8000);
+		assertThat(lines).contains("[3][/log-Demo]message 999");
+	}
+
+	@Test
+	void dropWhenFull() throws Exception {
+		Path file = tempDir.resolve("full.log");
+		AsyncLogWriter logWriter = new AsyncLogWriter(file, 2);
+
+		//잡기만 하고 채우지 않은 슬롯은 소비 스레드가 비우지 못한다
+		logWriter.claim();
+		logWriter.claim();
+		boolean written = logWriter.write(1L, "/", "c");
+
+		assertThat(written).isFalse();
+		assertThat(logWriter.getDroppedCount()).isEqualTo(1);
+	}
+
+	@Test
+	void writeAfterCloseCountsAsDropped() throws Exception {
+		Path file = tempDir.resolve("closed.log");
+		AsyncLogWriter logWriter = new AsyncLogWriter(file, 16);
+		logWriter.write(1L, "/", "first");
+		logWriter.close();
+
+		boolean written = logWriter.write(1L, "/", "late");
+
+		assertThat(written).isFalse();
+		assertThat(Files.readAllLines(file)).containsExactly("[1][/]first");
+		assertThat(logWriter.getDroppedCount()).isEqualTo(1);
+	}
+
+	@Test
+	void writeAfterCloseWithoutDrainerCountsAsDropped() throws Exception {
+		AsyncLogWriter logWriter = new AsyncLogWriter(tempDir.resolve("never.log"), 2);
+		logWriter.close();
+
+		assertThat(logWriter.write(1L, "/", "a")).isFalse();
+		assertThat(logWriter.write(1L, "/", "b")).isFalse();
+		assertThat(logWriter.getDroppedCount()).isEqualTo(2);
+	}
+
+	@Test
+	void writeErrorCountsAsDropped() throws Exception {
+		//디렉터리라 파일로 열 수 없다
+		Path directory = Files.createDirectory(tempDir.resolve("dir"));
+		AsyncLogWriter logWriter = new AsyncLogWriter(directory, 16);
+		logWriter.write(1L, "/", "a");
+		logWriter.close();
+
+		assertThat(logWriter.write(1L, "/", "b")).isFalse();
+		assertThat(logWriter.getDroppedCount()).isEqualTo(2);
+	}
+
+	@Test
+	void closeWaitsForClaimedSlot() throws Exception {
+		Path file = tempDir.resolve("late.log");
+		AsyncLogWriter logWriter = new AsyncLogWriter(file, 16);
+		logWriter.write(1L, "/", "first");
+		long seq = logWriter.claim();
+
+		//슬롯을 잡은 생산자가 채우기 전에 close 가 불린 경우
+		Thread closer = new Thread(() -> {
+			try {
+				logWriter.close();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		closer.start();
+		Thread.sleep(50);
+		logWriter.publish(seq, 1L, "/", "late");
+		closer.join();
+
+		assertThat(Files.readAllLines(file)).containsExactly("[1][/]first", "[1][/]late");
+		assertThat(logWriter.getDroppedCount()).isZero();
+	}
+
+	@Test
+	void unpublishedSlotCountsAsDropped() throws Exception {
+		Path file = tempDir.resolve("lost.log");
+		AsyncLogWriter logWriter = new AsyncLogWriter(file, 16);
+		logWriter.write(1L, "/", "first");
+		logWriter.claim();
+
+		logWriter.close();
+
+		assertThat(Files.readAllLines(file)).containsExactly("[1][/]first");
+		assertThat(logWriter.getDroppedCount()).isEqualTo(1);
+	}
+}
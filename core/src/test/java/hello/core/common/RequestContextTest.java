@@ -0,0 +1,59 @@
+package hello.core.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import hello.core.web.LogDemoController;
+import hello.core.web.LogDemoService;
+
+public class RequestContextTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void bindAndRestore() {
+		RequestContext outer = new RequestContext(1L, "/outer");
+		RequestContext inner = new RequestContext(2L, "/inner");
+
+		try (RequestContext.Binding b1 = RequestContext.bind(outer)) {
+			try (RequestContext.Binding b2 = RequestContext.bind(inner)) {
+				assertThat(RequestContext.current()).isSameAs(inner);
+			}
+			assertThat(RequestContext.current()).isSameAs(outer);
+		}
+
+		assertThat(RequestContext.isBound()).isFalse();
+		assertThatThrownBy(RequestContext::current).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void filterBindsEachRequest() throws Exception {
+		AsyncLogWriter logWriter = new AsyncLogWriter(tempDir.resolve("my-logger.log"), 1 << 10);
+		MyLogger myLogger = new MyLogger(logWriter);
+		LogDemoController controller = new LogDemoController(new LogDemoService(myLogger), myLogger,
+				new ContextLogger(logWriter));
+		MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller)
+				.addFilters(new RequestContextBindingFilter())
+				.build();
+
+		MvcResult first = mockMvc.perform(get("/log-context-demo")).andExpect(status().isOk()).andReturn();
+		MvcResult second = mockMvc.perform(get("/log-context-demo")).andExpect(status().isOk()).andReturn();
+
+		long firstId = Long.parseLong(first.getResponse().getContentAsString());
+		long secondId = Long.parseLong(second.getResponse().getContentAsString());
+		assertThat(secondId).isGreaterThan(firstId);
+		assertThat(RequestContext.isBound()).isFalse();
+		logWriter.close();
+	}
+}
@@ -0,0 +1,64 @@
+package hello.core.discount;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import hello.core.AutoAppConfig;
+import hello.core.member.Grade;
+import hello.core.member.Member;
+
+public class DiscountPolicyRegistryTest {
+
+	Member member = new Member(1L, "userA", Grade.VIP);
+
+	@Test
+	void dispatchById() {
+		DiscountPolicyRegistry registry = new DiscountPolicyRegistry(
+				Map.of("rateDiscountPolicy", new RateDiscountPolicy(), "fixDiscountPolicy", new FixDiscountPolicy()));
+
+		int fixId = registry.idOf("fixDiscountPolicy");
+		int rateId = registry.idOf("rateDiscountPolicy");
+
+		assertThat(fixId).isEqualTo(0);
+		assertThat(registry.getCode(rateId)).isEqualTo("rateDiscountPolicy");
+		assertThat(registry.discount(fixId, member, 20000)).isEqualTo(1000);
+		assertThat(registry.discount(rateId, member, 20000)).isEqualTo(2000);
+		assertThat(registry.isMegamorphic()).isFalse();
+		assertThatThrownBy(() -> registry.idOf("none")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void passItemName() {
+		TableDiscountPolicy table = new TableDiscountPolicy(List.of(
+				DiscountRule.rate(Grade.VIP, 0, 10),
+				DiscountRule.fix(Grade.VIP, 0, 500).forItem("itemA")));
+		DiscountPolicyRegistry registry = new DiscountPolicyRegistry(
+				Map.of("tableDiscountPolicy", table, "fixDiscountPolicy", new FixDiscountPolicy()));
+		int tableId = registry.idOf("tableDiscountPolicy");
+		int fixId = registry.idOf("fixDiscountPolicy");
+
+		assertThat(registry.discount(tableId, member, "itemA", 20000)).isEqualTo(500);
+		assertThat(registry.discount(tableId, member, "itemB", 20000)).isEqualTo(2000);
+		assertThat(registry.discount(tableId, member, 20000)).isEqualTo(2000);
+		assertThat(registry.discount(fixId, member, "itemA", 20000)).isEqualTo(1000);
+	}
+
+	@Test
+	void allPolicyBeans() {
+		ApplicationContext ac = new AnnotationConfigApplicationContext(AutoAppConfig.class);
+		DiscountPolicyRegistry registry = ac.getBean(DiscountPolicyRegistry.class);
+
+		assertThat(registry.size()).isEqualTo(ac.getBeansOfType(DiscountPolicy.class).size());
+		assertThat(registry.discount(registry.idOf("fixDiscountPolicy"), member, 10000)).isEqualTo(1000);
+		//Rate, Fix 두 구현(TableDiscountPolicy 는 스캔 대상이 아니다)
+		assertThat(registry.size()).isEqualTo(2);
+		assertThat(registry.isMegamorphic()).isFalse();
+	}
+}
@@ -0,0 +1,75 @@
+package hello.core.discount;
+
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import hello.core.member.Grade;
+import hello.core.member.Member;
+
+public class TableDiscountPolicyTest {
+
+	Member vip = new Member(1L, "memberVIP", Grade.VIP);
+	Member basic = new Member(2L, "memberBasic", Grade.BASIC);
+
+	@Test
+	@DisplayName("기본 규칙은 vip 10% 할인이다.")
+	void defaultRule() {
+		TableDiscountPolicy discountPolicy = new TableDiscountPolicy();
+
+		Assertions.assertThat(discountPolicy.discount(vip, 10000)).isEqualTo(1000);
+		Assertions.assertThat(discountPolicy.discount(basic, 10000)).isEqualTo(0);
+	}
+
+	@Test
+	@DisplayName("가격 구간과 상품 규칙이 적용되어야 한다.")
+	void bandAndItem() {
+		TableDiscountPolicy discountPolicy = new TableDiscountPolicy(List.of(
+				DiscountRule.rate(Grade.VIP, 0, 10),
+				DiscountRule.rate(Grade.VIP, 50000, 20),
+				DiscountRule.fix(Grade.BASIC, 30000, 1000),
+				DiscountRule.fix(Grade.VIP, 0, 500).forItem("itemA")));
+
+		Assertions.assertThat(discountPolicy.discount(vip, 10000)).isEqualTo(1000);
+		Assertions.assertThat(discountPolicy.discount(vip, 50000)).isEqualTo(10000);
+		Assertions.assertThat(discountPolicy.discount(basic, 29999)).isEqualTo(0);
+		Assertions.assertThat(discountPolicy.discount(basic, 30000)).isEqualTo(1000);
+		Assertions.assertThat(discountPolicy.discount(vip, "itemA", 10000)).isEqualTo(500);
+		Assertions.assertThat(discountPolicy.discount(vip, "itemB", 10000)).isEqualTo(1000);
+		//상품 규칙이 BASIC 에는 없으므로 공통 규칙
+		Assertions.assertThat(discountPolicy.discount(basic, "itemA", 30000)).isEqualTo(1000);
+	}
+
+	@Test
+	@DisplayName("상품 규칙의 가격 구간에 들지 않으면 공통 규칙이 적용되어야 한다.")
+	void itemBandFallsBackToCommon() {
+		TableDiscountPolicy discountPolicy = new TableDiscountPolicy(List.of(
+				DiscountRule.rate(Grade.VIP, 0, 10),
+				DiscountRule.fix(Grade.VIP, 20000, 500).forItem("itemA")));
+
+		Assertions.assertThat(discountPolicy.discount(vip, "itemA", 10000)).isEqualTo(1000);
+		Assertions.assertThat(discountPolicy.discount(vip, "itemA", 20000)).isEqualTo(500);
+	}
+
+	@Test
+	@DisplayName("할인 금액은 가격을 넘지 않는다.")
+	void cappedAtPrice() {
+		TableDiscountPolicy discountPolicy = new TableDiscountPolicy(List.of(DiscountRule.fix(Grade.VIP, 0, 5000)));
+
+		Assertions.assertThat(discountPolicy.discount(vip, 3000)).isEqualTo(3000);
+	}
+
+	@Test
+	@DisplayName("reload 하면 새 규칙이 바로 적용된다.")
+	void reload() {
+		TableDiscountPolicy discountPolicy = new TableDiscountPolicy();
+
+		discountPolicy.reload(List.of(DiscountRule.rate(Grade.VIP, 0, 15), DiscountRule.rate(Grade.BASIC, 0, 5)));
+
+		Assertions.assertThat(discountPolicy.discount(vip, 10000)).isEqualTo(1500);
+		Assertions.assertThat(discountPolicy.discount(basic, 10000)).isEqualTo(500);
+		Assertions.assertThat(discountPolicy.getTable().getRuleCount()).isEqualTo(2);
+	}
+}
@@ -0,0 +1,73 @@
+package hello.core.member;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentMemberStoreTest {
+
+	@Test
+	@DisplayName("저장한 회원을 키로 조회하고, 같은 키로 저장하면 덮어쓴다")
+	void putAndGet() {
+		ConcurrentMemberStore store = new ConcurrentMemberStore(2);
+		Member memberA = new Member(1L, "memberA", Grade.VIP);
+		Member memberB = new Member(1L, "memberB", Grade.BASIC);
+
+		store.put(1L, memberA);
+		assertThat(store.get(1L)).isSameAs(memberA);
+
+		store.put(1L, memberB);
+		assertThat(store.get(1L)).isSameAs(memberB);
+		assertThat(store.get(2L)).isNull();
+		assertThat(store.size()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("0, 음수 키와 테이블 확장 후에도 모두 조회된다")
+	void resize() {
+		ConcurrentMemberStore store = new ConcurrentMemberStore(2);
+		for (long id = -1000; id <= 1000; id++) {
+			store.put(id, new Member(id, "member" + id, Grade.BASIC));
+		}
+
+		assertThat(store.size()).isEqualTo(2001);
+		for (long id = -1000; id <= 1000; id++) {
+			assertThat(store.get(id).getId()).isEqualTo(id);
+		}
+	}
+
+	@Test
+	@DisplayName("여러 스레드가 동시에 저장해도 유실되지 않는다")
+	void concurrentPut() throws Exception {
+		ConcurrentMemberStore store = new ConcurrentMemberStore(2);
+		int threadCount = 8;
+		int perThread = 10000;
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < threadCount; t++) {
+			long base = (long) t * perThread;
+			futures.add(executor.submit(() -> {
+				for (long id = base; id < base + perThread; id++) {
+					store.put(id, new Member(id, "member" + id, Grade.BASIC));
+					assertThat(store.get(id)).isNotNull();
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+
+		assertThat(store.size()).isEqualTo(threadCount * perThread);
+		for (long id = 0; id < (long) threadCount * perThread; id++) {
+			assertThat(store.get(id).getId()).isEqualTo(id);
+		}
+	}
+}
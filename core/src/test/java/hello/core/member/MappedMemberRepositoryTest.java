@@ -0,0 +1,80 @@
+package hello.core.member;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MappedMemberRepositoryTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void reopen() throws Exception {
+		try (MappedMemberRepository repository = new MappedMemberRepository(dir)) {
+			for (long id = 1; id <= 100_000; id++) {
+				repository.save(new Member(id, "member" + id, id % 10 == 0 ? Grade.VIP : Grade.BASIC));
+			}
+			repository.save(new Member(7L, "회원7", Grade.VIP));
+		}
+
+		try (MappedMemberRepository repository = new MappedMemberRepository(dir)) {
+			assertThat(repository.size()).isEqualTo(100_000);
+			assertThat(repository.getRecordCount()).isEqualTo(100_001);
+			assertThat(repository.findById(7L).getName()).isEqualTo("회원7");
+			assertThat(repository.findById(7L).getGrade()).isEqualTo(Grade.VIP);
+			assertThat(repository.findById(100_000L).getName()).isEqualTo("member100000");
+			assertThat(repository.findById(100_001L)).isNull();
+		}
+	}
+
+	@Test
+	void ignoreUncommittedTail() throws Exception {
+		try (MappedMemberRepository repository = new MappedMemberRepository(dir)) {
+			repository.save(new Member(1L, "memberA", Grade.BASIC));
+		}
+		//커밋 표시 없이 id 만 써진 레코드(쓰다가 죽은 경우)
+		try (FileChannel channel = FileChannel.open(dir.resolve(MappedMemberRepository.RECORD_FILE), StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.allocate(8);
+			buffer.putLong(0, 2L);
+			channel.write(buffer, MappedMemberRepository.RECORD_SIZE);
+		}
+
+		try (MappedMemberRepository repository = new MappedMemberRepository(dir)) {
+			assertThat(repository.findById(2L)).isNull();
+			repository.save(new Member(3L, "memberC", Grade.VIP));
+		}
+		try (MappedMemberRepository repository = new MappedMemberRepository(dir)) {
+			assertThat(repository.size()).isEqualTo(2);
+			assertThat(repository.findById(3L).getName()).isEqualTo("memberC");
+		}
+	}
+
+	@Test
+	void ignoreTornRecord() throws Exception {
+		try (MappedMemberRepository repository = new MappedMemberRepository(dir)) {
+			repository.save(new Member(1L, "memberA", Grade.BASIC));
+		}
+		//커밋 표시는 디스크에 내려갔지만 필드 일부가 내려가지 않은 레코드(페이지가 순서 없이 내려간 경우)
+		try (FileChannel channel = FileChannel.open(dir.resolve(MappedMemberRepository.RECORD_FILE),
+				StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.allocate(MappedMemberRepository.RECORD_SIZE);
+			buffer.putLong(0, 2L);
+			buffer.put(21, (byte) 1);
+			buffer.putInt(24, 0xBADC0DE);
+			channel.write(buffer, MappedMemberRepository.RECORD_SIZE);
+		}
+
+		try (MappedMemberRepository repository = new MappedMemberRepository(dir)) {
+			assertThat(repository.findById(2L)).isNull();
+			assertThat(repository.getRecordCount()).isEqualTo(1);
+			assertThat(repository.findById(1L).getName()).isEqualTo("memberA");
+		}
+	}
+}
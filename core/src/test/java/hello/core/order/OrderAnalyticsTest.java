@@ -0,0 +1,115 @@
+package hello.core.order;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import hello.core.member.Grade;
+
+public class OrderAnalyticsTest {
+
+	@Test
+	void recordAndSnapshot() {
+		OrderAnalytics analytics = new OrderAnalytics();
+		analytics.record(Grade.VIP, "itemA", 10000, 1000);
+		analytics.record(Grade.VIP, "itemA", 20000, 2000);
+		analytics.record(Grade.BASIC, "itemB", 5000, 0);
+
+		OrderAnalytics.Snapshot snapshot = analytics.snapshot(1);
+
+		OrderStats.Snapshot vip = snapshot.getByGrade().get(Grade.VIP);
+		assertThat(vip.getCount()).isEqualTo(2);
+		assertThat(vip.getGross()).isEqualTo(30000);
+		assertThat(vip.getDiscount()).isEqualTo(3000);
+		assertThat(vip.getNet()).isEqualTo(27000);
+		assertThat(snapshot.getByItem().get("itemB").getCount()).isEqualTo(1);
+		assertThat(snapshot.getTopItems()).containsExactly("itemA");
+		//10000 은 8192 ~ 16383 구간
+		assertThat(snapshot.getByItem().get("itemA").priceQuantile(0.5)).isEqualTo(8192);
+	}
+
+	@Test
+	void overflowItems() {
+		OrderAnalytics analytics = new OrderAnalytics(2);
+		analytics.record(Grade.BASIC, "itemA", 1000, 0);
+		analytics.record(Grade.BASIC, "itemB", 1000, 0);
+		analytics.record(Grade.BASIC, "itemC", 1000, 0);
+
+		OrderAnalytics.Snapshot snapshot = analytics.snapshot(10);
+
+		assertThat(snapshot.getByItem()).containsKeys("itemA", "itemB", OrderAnalytics.OTHER_ITEMS);
+		assertThat(snapshot.getByItem().get(OrderAnalytics.OTHER_ITEMS).getCount()).isEqualTo(1);
+		assertThat(snapshot.getTopItems()).containsExactlyInAnyOrder("itemA", "itemB");
+	}
+
+	@Test
+	void lateHeavyHitterDisplacesTail() {
+		OrderAnalytics analytics = new OrderAnalytics(100);
+		for (int i = 0; i < 1000; i++) {
+			analytics.record(Grade.BASIC, "tail" + i, 1000, 0);
+		}
+		for (int i = 0; i < 50; i++) {
+			analytics.record(Grade.VIP, "hot", 2000, 100);
+		}
+
+		OrderAnalytics.Snapshot snapshot = analytics.snapshot(1);
+
+		assertThat(snapshot.getTopItems()).containsExactly("hot");
+		assertThat(snapshot.getByItem()).hasSizeLessThanOrEqualTo(101);
+		//추적 중인 상품과 OTHER_ITEMS 를 합치면 전체 주문과 같다
+		long count = snapshot.getByItem().values().stream().mapToLong(OrderStats.Snapshot::getCount).sum();
+		long gross = snapshot.getByItem().values().stream().mapToLong(OrderStats.Snapshot::getGross).sum();
+		assertThat(count).isEqualTo(1050);
+		assertThat(gross).isEqualTo(1000 * 1000 + 50 * 2000);
+	}
+
+	@Test
+	void concurrentRecord() throws Exception {
+		OrderAnalytics analytics = new OrderAnalytics();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < 10000; i++) {
+					analytics.record(Grade.VIP, "item" + (i % 5), 100, 10);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		OrderStats.Snapshot vip = analytics.snapshot(5).getByGrade().get(Grade.VIP);
+		assertThat(vip.getCount()).isEqualTo(80000);
+		assertThat(vip.getGross()).isEqualTo(8000000);
+		assertThat(vip.getDiscount()).isEqualTo(800000);
+	}
+
+	@Test
+	void concurrentChurnKeepsTotals() throws Exception {
+		OrderAnalytics analytics = new OrderAnalytics(16);
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < 10000; i++) {
+					analytics.record(Grade.BASIC, "item" + (i % 200), 100, 0);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		OrderAnalytics.Snapshot snapshot = analytics.snapshot(16);
+		//자리가 바뀌어도 추적 중인 상품 + OTHER_ITEMS 는 전체 주문과 같다
+		long count = snapshot.getByItem().values().stream().mapToLong(OrderStats.Snapshot::getCount).sum();
+		assertThat(count).isEqualTo(80000);
+		assertThat(snapshot.getByItem()).hasSizeLessThanOrEqualTo(17);
+	}
+}
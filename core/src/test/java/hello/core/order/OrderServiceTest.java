@@ -4,10 +4,16 @@ import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import hello.core.AppConfig;
+import hello.core.discount.DiscountRule;
+import hello.core.discount.TableDiscountPolicy;
 import hello.core.member.Grade;
 import hello.core.member.Member;
+import hello.core.member.MemberRepository;
 import hello.core.member.MemberService;
+import hello.core.member.MemoryMemberRepository;
 
 public class OrderServiceTest {
 	MemberService memberService;
@@ -30,4 +36,43 @@ public class OrderServiceTest {
 		
 		Assertions.assertThat(order.getDiscountPrice()).isEqualTo(1000);
 	}
+	
+	@Test
+	void createOrders() {
+		memberService.join(new Member(2L, "memberVIP", Grade.VIP));
+		memberService.join(new Member(3L, "memberBasic", Grade.BASIC));
+		
+		OrderBatch batch = orderService.createOrders(
+				new long[] { 2L, 3L, 2L },
+				new String[] { "itemA", "itemB", "itemC" },
+				new int[] { 10000, 10000, 20000 });
+		
+		Assertions.assertThat(batch.size()).isEqualTo(3);
+		Assertions.assertThat(batch.getDiscountPrice(0)).isEqualTo(1000);
+		Assertions.assertThat(batch.getDiscountPrice(1)).isEqualTo(0);
+		Assertions.assertThat(batch.getDiscountPrice(2)).isEqualTo(2000);
+		Assertions.assertThat(batch.calculatePrice(2)).isEqualTo(18000);
+		Assertions.assertThat(batch.totalPrice()).isEqualTo(37000);
+	}
+
+	@Test
+	void 상품규칙은_배치와_단건이_같은_할인() {
+		MemberRepository memberRepository = new MemoryMemberRepository();
+		memberRepository.save(new Member(10L, "memberVIP", Grade.VIP));
+		TableDiscountPolicy discountPolicy = new TableDiscountPolicy(List.of(
+				DiscountRule.rate(Grade.VIP, 0, 10),
+				DiscountRule.fix(Grade.VIP, 0, 500).forItem("itemA")));
+		OrderServiceImpl service = new OrderServiceImpl(memberRepository, discountPolicy, new OrderAnalytics());
+		
+		OrderBatch batch = service.createOrders(
+				new long[] { 10L, 10L },
+				new String[] { "itemA", "itemB" },
+				new int[] { 10000, 10000 });
+		
+		Assertions.assertThat(batch.getDiscountPrice(0)).isEqualTo(500);
+		Assertions.assertThat(batch.getDiscountPrice(0))
+				.isEqualTo(service.createOrder(10L, "itemA", 10000).getDiscountPrice());
+		Assertions.assertThat(batch.getDiscountPrice(1))
+				.isEqualTo(service.createOrder(10L, "itemB", 10000).getDiscountPrice());
+	}
 }
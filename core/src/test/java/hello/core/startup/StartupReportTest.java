@@ -0,0 +1,29 @@
+package hello.core.startup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import hello.core.AppConfig;
+
+public class StartupReportTest {
+
+	@Test
+	void report() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(1000);
+		AnnotationConfigApplicationContext ac = new AnnotationConfigApplicationContext();
+		ac.setApplicationStartup(startup);
+		ac.register(AppConfig.class);
+		ac.refresh();
+
+		StartupReport report = StartupReport.of(startup.getBufferedTimeline());
+		System.out.println(report.format(10));
+
+		assertThat(report.getPhases()).containsKey("spring.context.refresh");
+		assertThat(report.getBeans()).extracting(StartupReport.BeanTime::getBeanName)
+				.contains("memberService", "orderService", "memberRepository");
+		ac.close();
+	}
+}
@@ -9,9 +9,11 @@ import org.springframework.stereotype.Component;
 import hello.jpashop.domain.Address;
 import hello.jpashop.domain.delivery.Delivery;
 import hello.jpashop.domain.item.Book;
+import hello.jpashop.domain.item.Item;
 import hello.jpashop.domain.member.Member;
 import hello.jpashop.domain.order.Order;
 import hello.jpashop.domain.order.OrderItem;
+import hello.jpashop.domain.service.StockReservationService;
 import lombok.RequiredArgsConstructor;
 
 @Component
@@ -31,6 +33,7 @@ public class InitDb {
 	@RequiredArgsConstructor
 	static class InitService {
 		private final EntityManager em;
+		private final StockReservationService stockReservationService;
 
 		public void dbInit1() {
 			Member member = createMember("userA", "서울", "1", "1111");
@@ -39,8 +42,8 @@ public class InitDb {
 			em.persist(book1);
 			Book book2 = createBook("JPA2 BOOK", 20000, 100);
 			em.persist(book2);
-			OrderItem orderItem1 = OrderItem.createOrderItem(book1, 10000, 1);
-			OrderItem orderItem2 = OrderItem.createOrderItem(book2, 20000, 2);
+			OrderItem orderItem1 = createOrderItem(book1, 10000, 1);
+			OrderItem orderItem2 = createOrderItem(book2, 20000, 2);
 			Order order = Order.createOrder(member, createDelivery(member), orderItem1, orderItem2);
 			em.persist(order);
 		}
@@ -53,12 +56,18 @@ public class InitDb {
 			Book book2 = createBook("SPRING2 BOOK", 40000, 300);
 			em.persist(book2);
 			Delivery delivery = createDelivery(member);
-			OrderItem orderItem1 = OrderItem.createOrderItem(book1, 20000, 3);
-			OrderItem orderItem2 = OrderItem.createOrderItem(book2, 40000, 4);
+			OrderItem orderItem1 = createOrderItem(book1, 20000, 3);
+			OrderItem orderItem2 = createOrderItem(book2, 40000, 4);
 			Order order = Order.createOrder(member, delivery, orderItem1, orderItem2);
 			em.persist(order);
 		}
 
+		//주문과 같은 경로로 재고를 예약한다
+		private OrderItem createOrderItem(Item item, int orderPrice, int count) {
+			stockReservationService.reserve(item, count);
+			return OrderItem.createReservedOrderItem(item, orderPrice, count);
+		}
+
 		private Member createMember(String name, String city, String street, String zipcode) {
 			Member member = new Member();
 			member.setName(name);
@@ -1,13 +1,27 @@
 package hello.jpashop.api;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import static java.util.stream.Collectors.*;
 
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import hello.jpashop.domain.Address;
 import hello.jpashop.domain.order.Order;
@@ -15,11 +29,11 @@ import hello.jpashop.domain.order.OrderItem;
 import hello.jpashop.domain.order.OrderSearch;
 import hello.jpashop.domain.order.OrderStatus;
 import hello.jpashop.domain.repository.OrderRepository;
-import hello.jpashop.domain.repository.order.query.OrderFlatDto;
-import hello.jpashop.domain.repository.order.query.OrderItemQueryDto;
 import hello.jpashop.domain.repository.order.query.OrderQueryDto;
 import hello.jpashop.domain.repository.order.query.OrderQueryRepository;
 import hello.jpashop.domain.service.MemberService;
+import hello.jpashop.domain.service.OrderService;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -30,6 +44,13 @@ public class OrderApiController {
 
 	private final OrderRepository orderRepository;
 	private final OrderQueryRepository orderQueryRepository;
+	private final OrderService orderService;
+	private final ObjectMapper objectMapper;
+
+	static final int EXPORT_CHUNK_SIZE = 500;	//이 건수마다 영속성 컨텍스트를 비운다
+
+	@Value("${jpashop.export.fetch-size:500}")
+	private int exportFetchSize;
 
 	@GetMapping("/api/v1/orders")
 	public List<Order> ordersV1() {
@@ -70,6 +91,69 @@ public class OrderApiController {
 		return collect;
 	}
 	
+	/*
+	 * keyset 페이징
+	 * offset 대신 이전 응답의 next 토큰을 cursor 로 넘긴다. 몇 번째 페이지든 비용이 같다.
+	 * orderItems 는 페이지 단위로 in 쿼리 한 번에 채운다.
+	 */
+	@GetMapping("/api/v3.2/orders")
+	public OrderPage ordersV3_keyset(@RequestParam(value = "cursor", required = false) String cursor, @RequestParam(value = "limit", defaultValue = "100") int limit) {
+		limit = Math.max(1, Math.min(limit, 1000));	// 최대 1000건
+		OrderCursor after = StringUtils.hasText(cursor) ? decodeCursor(cursor) : null;
+
+		//한 건 더 읽어서 다음 페이지가 있는지 본다
+		List<Order> orders = after == null
+				? orderRepository.findAllWithMemberDeliveryAfter(null, null, limit + 1)
+				: orderRepository.findAllWithMemberDeliveryAfter(after.getOrderDate(), after.getOrderId(), limit + 1);
+		boolean hasNext = orders.size() > limit;
+		if (hasNext) {
+			orders = orders.subList(0, limit);
+		}
+		orderRepository.fetchOrderItems(orders);
+
+		List<OrderDto> collect = orders.stream().map(o -> new OrderDto(o)).collect(toList());
+		String next = hasNext ? OrderCursor.of(orders.get(orders.size() - 1)).encode() : null;
+
+		return new OrderPage(collect, next);
+	}
+
+	//깨진 토큰은 클라이언트 잘못이므로 500 이 아니라 400
+	private OrderCursor decodeCursor(String cursor) {
+		try {
+			return OrderCursor.decode(cursor);
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid cursor", e);
+		}
+	}
+
+	/*
+	 * 전체 주문 NDJSON(한 줄에 주문 하나) 내보내기
+	 * List 를 만들지 않고 chunk 단위로 읽은 주문을 바로 응답 스트림에 쓴다.
+	 * 힙 사용량이 주문 수와 무관한 것은 드라이버가 fetch-size 만큼씩 커서로 읽을 때뿐이다(H2, PostgreSQL 은 트랜잭션 안에서).
+	 * MySQL 은 fetch-size 가 Integer.MIN_VALUE 일 때만 스트리밍하는데, 그동안 같은 커넥션으로 다른 쿼리를 보낼 수 없어
+	 * chunk 마다 orderItems 를 읽는 이 방식과 함께 쓸 수 없다. MySQL 에서는 url 에 useCursorFetch=true 를 주고
+	 * jpashop.export.fetch-size 를 양수로 둔다.
+	 */
+	@GetMapping(value = "/api/v3/orders/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public void exportOrders(HttpServletResponse response) throws IOException {
+		response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		OutputStream out = response.getOutputStream();
+		ObjectWriter writer = objectMapper.writerFor(OrderDto.class);
+
+		orderService.exportOrders(exportFetchSize, EXPORT_CHUNK_SIZE, orders -> {
+			try {
+				for (Order order : orders) {
+					out.write(writer.writeValueAsBytes(new OrderDto(order)));
+					out.write('\n');
+				}
+				out.flush();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
 	@GetMapping("/api/v4/orders")
 	public List<OrderQueryDto> ordersV4(){
 		return this.orderQueryRepository.findOrderQueryDtos();
@@ -80,20 +164,21 @@ public class OrderApiController {
 		return this.orderQueryRepository.findAllByDto_optimization();
 	}
 	
+	/*
+	 * 조인 쿼리 한 번, 주문 id 순 정렬 결과를 OrderFlatGrouper 로 한 번만 훑어 묶는다.
+	 * after(마지막으로 받은 주문 id) 와 limit 으로 페이징한다. after 가 없으면 처음부터.
+	 */
 	@GetMapping("/api/v6/orders")
-	public List<OrderQueryDto> ordersV6(){
-		List<OrderFlatDto> flats = this.orderQueryRepository.findAllByDto_flat();
-		
-		return flats.stream()
-				 .collect(groupingBy(o -> new OrderQueryDto(o.getOrderId(), 
-				o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress()),
-				 mapping(o -> new OrderItemQueryDto(o.getOrderId(), 
-				o.getItemName(), o.getOrderPrice(), o.getCount()), toList())
-				 )).entrySet().stream()
-				 .map(e -> new OrderQueryDto(e.getKey().getOrderId(), 
-				e.getKey().getName(), e.getKey().getOrderDate(), e.getKey().getOrderStatus(), 
-				e.getKey().getAddress(), e.getValue()))
-				 .collect(toList());
+	public List<OrderQueryDto> ordersV6(@RequestParam(value = "after", required = false) Long after, @RequestParam(value = "limit", defaultValue = "100") int limit){
+		limit = Math.max(1, Math.min(limit, 1000));	// 최대 1000건
+		return this.orderQueryRepository.findAllByDto_flat(after, limit);
+	}
+
+	@Data
+	@AllArgsConstructor
+	static class OrderPage {
+		private List<OrderDto> data;
+		private String next;	//마지막 페이지면 null
 	}
 
 	@Getter
@@ -0,0 +1,54 @@
+package hello.jpashop.api;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import hello.jpashop.domain.order.Order;
+import lombok.Getter;
+
+/*
+ * keyset 페이징 이어보기 토큰
+ * 마지막으로 내려준 주문의 (orderDate, id) 를 url-safe base64 로 감싼다.
+ * 클라이언트는 내용을 해석하지 않고 next 를 그대로 다시 보내기만 한다.
+ */
+@Getter
+public class OrderCursor {
+
+	private static final char SEPARATOR = '|';
+
+	private final LocalDateTime orderDate;
+	private final Long orderId;
+
+	public OrderCursor(LocalDateTime orderDate, Long orderId) {
+		this.orderDate = orderDate;
+		this.orderId = orderId;
+	}
+
+	public static OrderCursor of(Order order) {
+		return new OrderCursor(order.getOrderDate(), order.getId());
+	}
+
+	public String encode() {
+		String raw = orderDate.toString() + SEPARATOR + orderId;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/*
+	 * @throws IllegalArgumentException 깨지거나 위조된 토큰
+	 */
+	public static OrderCursor decode(String token) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int idx = raw.lastIndexOf(SEPARATOR);
+			if (idx < 0) {
+				throw new IllegalArgumentException("invalid cursor: " + token);
+			}
+			return new OrderCursor(LocalDateTime.parse(raw.substring(0, idx)), Long.valueOf(raw.substring(idx + 1)));
+		} catch (DateTimeParseException | IllegalArgumentException e) {
+			//NumberFormatException 도 IllegalArgumentException
+			throw new IllegalArgumentException("invalid cursor: " + token, e);
+		}
+	}
+}
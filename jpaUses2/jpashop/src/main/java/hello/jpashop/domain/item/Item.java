@@ -16,7 +16,6 @@ import javax.persistence.ManyToMany;
 import javax.persistence.OneToMany;
 
 import hello.jpashop.domain.category.Category;
-import hello.jpashop.domain.exception.NotEnoughStockException;
 import hello.jpashop.domain.order.OrderItem;
 import lombok.Getter;
 import lombok.Setter;
@@ -45,25 +44,5 @@ public abstract class Item {
 	private List<Category> categories = new ArrayList<>();
 	
 	
-	// 비즈니스 로직
-	
-	/*
-	 * stock 증가
-	 */
-	public void addStock(int quantity) {
-		this.stockQuantity += quantity;
-	}
-	
-	/*
-	 * stock 감소
-	 */
-	public void removeStock(int quantity) {
-		int restStock = this.stockQuantity - quantity;
-		if(restStock < 0) {
-			throw new NotEnoughStockException("need more stock");
-		}
-		this.stockQuantity = restStock;
-	}
-	
-	
+	//재고는 메모리에서 바꾸지 않는다. 증감은 StockReservationService 가 DB 에서 한다
 }
@@ -10,6 +10,7 @@ import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
@@ -25,7 +26,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name="orders")
+@Table(name="orders", indexes = @Index(name = "idx_orders_order_date_id", columnList = "order_date, order_id"))	//keyset 페이징용
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)	//생성자 protected로 생성해서 생성자 사용불가하게 만듬
@@ -82,17 +83,14 @@ public class Order {
 	// 비즈니스 로직
 	
 	/*
-	 * 주문 취소
+	 * 주문 상태만 취소로 바꾼다. 재고는 StockReservationService 가 DB 에서 직접 되돌린다.
 	 */
-	public void cancel() {
+	public void cancelStatus() {
 		if(delivery.getStatus() == DeliveryStatus.COMP) {
 			throw new IllegalStateException("이미 배송완료된 상품은 취소가 불가능합니다.");
 		}
 		
 		this.setStatus(OrderStatus.CANCEL);
-		for(OrderItem orderItem : orderItems) {
-			orderItem.cancel();
-		}
 	}
 	
 	// 조회 로직
@@ -38,22 +38,19 @@ public class OrderItem {
 	
 	private int count; //주문 수량
 	
-	// 생성 메서드
-	public static OrderItem createOrderItem(Item item, int orderPrice, int count) {
+	/*
+	 * 생성 메서드
+	 * 재고는 StockReservationService 로 먼저 예약한다. Item 의 재고를 메모리에서 빼지 않는다(변경감지로 덮어쓰면 동시 주문의 차감이 사라진다)
+	 */
+	public static OrderItem createReservedOrderItem(Item item, int orderPrice, int count) {
 		OrderItem orderItem = new OrderItem();
 		orderItem.setItem(item);
 		orderItem.setOrderPrice(orderPrice);
 		orderItem.setCount(count);
-		
-		item.removeStock(count);
 		return orderItem;
 	}
 
 	// 비즈니스 로직
-	public void cancel() {
-		getItem().addStock(count);
-	}
-
 	public int getTotalPrice() {
 		return getOrderPrice() * getCount();
 	}
@@ -0,0 +1,173 @@
+package hello.jpashop.domain.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Component;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/*
+ * id 목록으로 "where x.id in :ids" 를 부르는 조회를 고정 크기 chunk 로 나눠 실행한다.
+ *
+ * 1. chunk 크기는 2의 거듭제곱(최대 chunkSize)으로 올림하고 모자란 자리는 마지막 id 로 채운다.
+ *    in 파라미터 개수 종류가 몇 개로 고정되므로 DB 실행계획 캐시/하이버네이트 쿼리 캐시를 재사용한다.
+ *    DB 의 in 목록 제한도 넘지 않는다.
+ * 2. chunk 가 둘 이상이면 chunk 마다 읽기 전용 Session 을 열어 동시에 실행한다.
+ *    커넥션은 애플리케이션 풀이 아니라 이 로더 전용 풀(in-loader, 크기 = parallelism)에서 얻는다.
+ *    호출 스레드는 open-in-view 로 애플리케이션 풀 커넥션을 쥔 채 기다리므로, 같은 풀을 쓰면
+ *    동시 요청이 풀을 다 잡고 로더 스레드는 커넥션을 못 얻는 교착이 생긴다.
+ *    로더 스레드 수와 전용 풀 크기가 같아 로더 스레드는 커넥션을 기다리지 않는다.
+ * 3. 결과는 호출 스레드에서 key 별로 합친다.
+ * chunk 하나로 끝나는 목록은 호출한 쪽의 EntityManager 로 그냥 실행한다.
+ */
+@Component
+public class ChunkedInQueryLoader {
+
+	private final SessionFactory sessionFactory;
+	private final DataSource chunkDataSource;
+	private final int chunkSize;
+	private final ExecutorService executor;
+
+	@Autowired
+	public ChunkedInQueryLoader(EntityManagerFactory emf, DataSourceProperties dataSourceProperties,
+			@Value("${jpashop.in-loader.chunk-size:512}") int chunkSize,
+			@Value("${jpashop.in-loader.parallelism:4}") int parallelism) {
+		this(emf.unwrap(SessionFactory.class), chunkPool(dataSourceProperties, parallelism),
+				chunkSize, parallelism);
+	}
+
+	ChunkedInQueryLoader(SessionFactory sessionFactory, DataSource chunkDataSource, int chunkSize, int parallelism) {
+		if (chunkSize < 1 || parallelism < 1) {
+			throw new IllegalArgumentException("chunkSize and parallelism must be positive");
+		}
+		this.sessionFactory = sessionFactory;
+		this.chunkDataSource = chunkDataSource;
+		this.chunkSize = chunkSize;
+		AtomicInteger seq = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(parallelism, r -> {
+			Thread t = new Thread(r, "in-loader-" + seq.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	private static DataSource chunkPool(DataSourceProperties properties, int parallelism) {
+		HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("in-loader");
+		dataSource.setMaximumPoolSize(parallelism);
+		dataSource.setMinimumIdle(0);
+		dataSource.setReadOnly(true);
+		return dataSource;
+	}
+
+	/*
+	 * query 는 (EntityManager, chunk ids) 로 한 chunk 를 조회한다. 다른 스레드에서 불리므로 상태를 갖지 않아야 한다.
+	 */
+	public <K, V> Map<K, List<V>> loadGrouped(EntityManager em, List<K> ids,
+			BiFunction<EntityManager, List<K>, List<V>> query, Function<V, K> keyOf) {
+		return loadGrouped(ids, chunk -> query.apply(em, chunk), chunk -> queryReadOnly(chunk, query), keyOf);
+	}
+
+	//inline 은 호출 스레드에서, parallel 은 로더 스레드에서 한 chunk 를 조회한다
+	<K, V> Map<K, List<V>> loadGrouped(List<K> ids, Function<List<K>, List<V>> inline,
+			Function<List<K>, List<V>> parallel, Function<V, K> keyOf) {
+		List<List<K>> chunks = split(ids);
+		Map<K, List<V>> result = new HashMap<>();
+		if (chunks.isEmpty()) {
+			return result;
+		}
+		if (chunks.size() == 1) {
+			group(inline.apply(chunks.get(0)), keyOf, result);
+			return result;
+		}
+
+		List<CompletableFuture<List<V>>> futures = new ArrayList<>(chunks.size());
+		for (List<K> chunk : chunks) {
+			futures.add(CompletableFuture.supplyAsync(() -> parallel.apply(chunk), executor));
+		}
+		try {
+			for (CompletableFuture<List<V>> future : futures) {
+				group(future.join(), keyOf, result);
+			}
+		} catch (CompletionException e) {
+			futures.forEach(f -> f.cancel(false));
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+		return result;
+	}
+
+	private <K, V> List<V> queryReadOnly(List<K> chunk, BiFunction<EntityManager, List<K>, List<V>> query) {
+		try (Connection con = chunkDataSource.getConnection();
+				Session session = sessionFactory.withOptions().connection(con).openSession()) {
+			session.setDefaultReadOnly(true);
+			return query.apply(session, chunk);
+		} catch (SQLException e) {
+			throw new DataAccessResourceFailureException("in-loader connection failed", e);
+		}
+	}
+
+	private <K, V> void group(List<V> rows, Function<V, K> keyOf, Map<K, List<V>> result) {
+		for (V row : rows) {
+			result.computeIfAbsent(keyOf.apply(row), k -> new ArrayList<>()).add(row);
+		}
+	}
+
+	//중복 id 를 빼고 chunkSize 씩 자른 뒤 각 chunk 를 padding
+	<K> List<List<K>> split(List<K> ids) {
+		List<K> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+		List<List<K>> chunks = new ArrayList<>();
+		for (int from = 0; from < distinct.size(); from += chunkSize) {
+			List<K> chunk = new ArrayList<>(distinct.subList(from, Math.min(from + chunkSize, distinct.size())));
+			K last = chunk.get(chunk.size() - 1);
+			int padded = paddedSize(chunk.size());
+			while (chunk.size() < padded) {
+				chunk.add(last);
+			}
+			chunks.add(chunk);
+		}
+		return chunks;
+	}
+
+	int paddedSize(int size) {
+		int padded = Integer.highestOneBit(size);
+		if (padded < size) {
+			padded <<= 1;
+		}
+		return Math.min(padded, chunkSize);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+		if (chunkDataSource instanceof HikariDataSource) {
+			((HikariDataSource) chunkDataSource).close();
+		}
+	}
+}
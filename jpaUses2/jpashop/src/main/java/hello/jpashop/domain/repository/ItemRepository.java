@@ -30,4 +30,33 @@ public class ItemRepository {
 	public List<Item> findAll(){
 		return em.createQuery("select i from Item i",Item.class).getResultList();
 	}
+	
+	/*
+	 * 재고 조건부 차감
+	 * 읽고-빼고-변경감지로 쓰는 대신 DB 가 한 문장으로 검사와 차감을 함께 한다. 동시에 주문해도 재고가 음수가 되지 않는다.
+	 * 벌크 연산이라 영속성 컨텍스트의 Item 은 바뀌지 않는다(필요하면 refresh)
+	 * @return 1 이면 성공, 0 이면 재고 부족(또는 없는 상품)
+	 */
+	public int decreaseStock(Long itemId, int count) {
+		return em.createQuery("update Item i set i.stockQuantity = i.stockQuantity - :count" +
+							  " where i.id = :itemId and i.stockQuantity >= :count")
+				.setParameter("count", count)
+				.setParameter("itemId", itemId)
+				.executeUpdate();
+	}
+	
+	public int increaseStock(Long itemId, int count) {
+		return em.createQuery("update Item i set i.stockQuantity = i.stockQuantity + :count" +
+							  " where i.id = :itemId")
+				.setParameter("count", count)
+				.setParameter("itemId", itemId)
+				.executeUpdate();
+	}
+	
+	//벌크 연산 뒤 영속성 컨텍스트의 Item 을 DB 값으로 다시 읽는다
+	public void refresh(Item item) {
+		if (em.contains(item)) {
+			em.refresh(item);
+		}
+	}
 }
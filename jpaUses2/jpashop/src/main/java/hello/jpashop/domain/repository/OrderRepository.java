@@ -1,7 +1,9 @@
 package hello.jpashop.domain.repository;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import javax.persistence.EntityManager;
@@ -13,6 +15,9 @@ import javax.persistence.criteria.JoinType;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
@@ -109,6 +114,88 @@ public class OrderRepository {
 				.getResultList();
 	}
 
+	/*
+	 * keyset(seek) 페이징
+	 * offset 은 앞 페이지 행을 전부 읽고 버리지만, 마지막으로 본 (orderDate, id) 다음부터 읽으면
+	 * idx_orders_order_date_id 인덱스를 타고 바로 시작점으로 간다. 뒤 페이지도 앞 페이지와 같은 비용이다.
+	 * lastId 가 null 이면 첫 페이지
+	 */
+	public List<Order> findAllWithMemberDeliveryAfter(LocalDateTime lastOrderDate, Long lastId, int limit) {
+		String jpql = "select o from Order o" +
+				  " join fetch o.member m" +
+				  " join fetch o.delivery d";
+		if (lastId != null) {
+			jpql += " where o.orderDate > :lastOrderDate" +
+					" or (o.orderDate = :lastOrderDate and o.id > :lastId)";
+		}
+		jpql += " order by o.orderDate, o.id";
+
+		TypedQuery<Order> query = em.createQuery(jpql, Order.class).setMaxResults(limit);
+		if (lastId != null) {
+			query.setParameter("lastOrderDate", lastOrderDate)
+				 .setParameter("lastId", lastId);
+		}
+		return query.getResultList();
+	}
+
+	/*
+	 * 이미 조회한 주문들의 orderItems, item 을 in 쿼리 한 번으로 채운다.
+	 * 같은 영속성 컨텍스트의 Order 컬렉션이 초기화되므로 이후 getOrderItems() 는 쿼리가 나가지 않는다.
+	 * 상품이 없는 주문도 빈 컬렉션으로 초기화되도록 left join 으로 읽는다.
+	 * (컬렉션 fetch join 은 페이징이 안 되므로 페이지를 먼저 자르고 따로 부른다)
+	 */
+	public void fetchOrderItems(List<Order> orders) {
+		if (orders.isEmpty()) {
+			return;
+		}
+		em.createQuery("select distinct o from Order o" +
+					   " left join fetch o.orderItems oi" +
+					   " left join fetch oi.item i" +
+					   " where o in :orders", Order.class)
+				.setParameter("orders", orders)
+				.getResultList();
+	}
+
+	/*
+	 * 전체 주문을 forward-only 커서로 읽으며 chunkSize 개씩 넘긴다.
+	 * 한 chunk 를 넘긴 뒤 영속성 컨텍스트를 비우므로 주문 수와 상관없이 힙에 chunk 하나만 남는다.
+	 * chunk 마다 orderItems 는 fetchOrderItems 로 한 번에 채운다.
+	 * 커서가 살아 있어야 하므로 트랜잭션 안에서 불러야 한다.
+	 * (MySQL 드라이버는 fetchSize 가 Integer.MIN_VALUE 일 때만 스트리밍하고, 그동안 같은 커넥션에 fetchOrderItems 를
+	 *  보낼 수 없다. MySQL 에서는 useCursorFetch=true 와 양수 fetchSize 를 쓴다)
+	 */
+	public void scrollAllWithMemberDelivery(int fetchSize, int chunkSize, Consumer<List<Order>> chunkConsumer) {
+		ScrollableResults results = em.createQuery("select o from Order o" +
+				  " join fetch o.member m" +
+				  " join fetch o.delivery d" +
+				  " order by o.id", Order.class)
+				.unwrap(Query.class)
+				.setFetchSize(fetchSize)
+				.setReadOnly(true)
+				.scroll(ScrollMode.FORWARD_ONLY);
+		try {
+			List<Order> chunk = new ArrayList<>(chunkSize);
+			while (results.next()) {
+				chunk.add((Order) results.get(0));
+				if (chunk.size() == chunkSize) {
+					flushChunk(chunk, chunkConsumer);
+				}
+			}
+			if (!chunk.isEmpty()) {
+				flushChunk(chunk, chunkConsumer);
+			}
+		} finally {
+			results.close();
+		}
+	}
+
+	private void flushChunk(List<Order> chunk, Consumer<List<Order>> chunkConsumer) {
+		fetchOrderItems(chunk);
+		chunkConsumer.accept(chunk);
+		chunk.clear();
+		em.clear();
+	}
+
 	public List<Order> findAllWithItem() {
 		return em.createQuery("select distinct o from Order o" +
 							  " join fetch o.member m" +
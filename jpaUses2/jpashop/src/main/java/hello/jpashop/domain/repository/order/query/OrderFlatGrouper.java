@@ -0,0 +1,70 @@
+package hello.jpashop.domain.repository.order.query;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/*
+ * orderId 순으로 정렬된 OrderFlatDto 행을 같은 orderId 가 이어지는 구간마다 OrderQueryDto 하나로 묶는다.
+ * groupingBy 와 달리 Map 도, DTO 의 equals/hashCode 도 쓰지 않고 한 번만 훑는다.
+ * 메모리에는 지금 묶는 주문 하나만 있고, 입력 순서가 그대로 유지되며, 지연 실행이라 limit 으로 끊을 수 있다.
+ */
+public final class OrderFlatGrouper {
+
+	private OrderFlatGrouper() {
+	}
+
+	/*
+	 * @throws IllegalStateException 행이 orderId 오름차순이 아닐 때(같은 주문이 떨어져 나오면 둘로 쪼개지므로)
+	 */
+	public static Stream<OrderQueryDto> group(Stream<OrderFlatDto> rows) {
+		Iterator<OrderFlatDto> it = rows.iterator();
+		Spliterator<OrderQueryDto> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+				Spliterator.ORDERED | Spliterator.NONNULL) {
+
+			private OrderFlatDto pending;	//다음 주문의 첫 행
+			private Long lastOrderId;
+
+			@Override
+			public boolean tryAdvance(Consumer<? super OrderQueryDto> action) {
+				if (pending == null) {
+					if (!it.hasNext()) {
+						return false;
+					}
+					pending = it.next();
+				}
+				OrderFlatDto first = pending;
+				pending = null;
+				if (lastOrderId != null && first.getOrderId().compareTo(lastOrderId) <= 0) {
+					throw new IllegalStateException("rows must be sorted by orderId: " + first.getOrderId()
+							+ " after " + lastOrderId);
+				}
+				lastOrderId = first.getOrderId();
+
+				List<OrderItemQueryDto> orderItems = new ArrayList<>();
+				orderItems.add(toOrderItem(first));
+				while (it.hasNext()) {
+					OrderFlatDto row = it.next();
+					if (!row.getOrderId().equals(first.getOrderId())) {
+						pending = row;
+						break;
+					}
+					orderItems.add(toOrderItem(row));
+				}
+				action.accept(new OrderQueryDto(first.getOrderId(), first.getName(), first.getOrderDate(),
+						first.getOrderStatus(), first.getAddress(), orderItems));
+				return true;
+			}
+		};
+		return StreamSupport.stream(spliterator, false).onClose(rows::close);
+	}
+
+	private static OrderItemQueryDto toOrderItem(OrderFlatDto row) {
+		return new OrderItemQueryDto(row.getOrderId(), row.getItemName(), row.getOrderPrice(), row.getCount());
+	}
+}
@@ -3,10 +3,16 @@ package hello.jpashop.domain.repository.order.query;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
 
+import org.hibernate.annotations.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import hello.jpashop.domain.repository.ChunkedInQueryLoader;
 
 import lombok.RequiredArgsConstructor;
 
@@ -15,6 +21,16 @@ import lombok.RequiredArgsConstructor;
 public class OrderQueryRepository {
 
 	private final EntityManager em;
+	private final ChunkedInQueryLoader inQueryLoader;
+
+	private static final int FLAT_FETCH_SIZE = 500;
+	private static final String FLAT_QUERY =
+			"select new hello.jpashop.domain.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
+			" from Order o" +
+			" join o.member m" +
+			" join o.delivery d" +
+			" join o.orderItems oi" +
+			" join oi.item i";
 
 	public List<OrderQueryDto> findOrderQueryDtos() {
 		List<OrderQueryDto> result = findOrders();	//query 1번 -> N개
@@ -61,27 +77,41 @@ public class OrderQueryRepository {
 				.collect(Collectors.toList());
 	}
 	
+	/*
+	 * 주문이 많으면 in 목록이 DB 제한을 넘고 목록 길이마다 실행계획이 새로 생기므로
+	 * ChunkedInQueryLoader 로 고정 크기 chunk 로 나눠 병렬 조회 후 합친다.
+	 */
 	private Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds){
-		List<OrderItemQueryDto> orderItems = em.createQuery(
+		return inQueryLoader.loadGrouped(em, orderIds, OrderQueryRepository::findOrderItemsIn, OrderItemQueryDto::getOrderId);
+	}
+	
+	private static List<OrderItemQueryDto> findOrderItemsIn(EntityManager em, List<Long> orderIds) {
+		return em.createQuery(
 				"select new hello.jpashop.domain.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" + 
 		        " from OrderItem oi" + 
 				" join oi.item i" + 
 		        " where oi.order.id in :orderIds", OrderItemQueryDto.class)
 				.setParameter("orderIds", orderIds)
 				.getResultList();
-		
-		return orderItems.stream().collect(Collectors.groupingBy(orderItemQueryDto -> orderItemQueryDto.getOrderId()));
 	}
 
-	public List<OrderFlatDto> findAllByDto_flat() {
-		return em.createQuery(
-				"select new hello.jpashop.domain.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
-				" from Order o" +
-				" join o.member m" +
-				" join o.delivery d" +
-				" join o.orderItems oi" +
-				" join oi.item i", OrderFlatDto.class).getResultList();
-				
+	/*
+	 * afterOrderId 다음 주문부터 limit 개 (keyset 페이징, afterOrderId 가 null 이면 처음부터)
+	 * 한 번의 조인 쿼리 결과를 커서로 읽으며 바로 묶고, limit 개를 채우면 남은 행은 읽지 않는다.
+	 * 커서를 여는 동안 트랜잭션이 필요하다.
+	 */
+	@Transactional(readOnly = true)
+	public List<OrderQueryDto> findAllByDto_flat(Long afterOrderId, int limit) {
+		TypedQuery<OrderFlatDto> query = em.createQuery(FLAT_QUERY +
+				(afterOrderId == null ? "" : " where o.id > :afterOrderId") +
+				" order by o.id, oi.id", OrderFlatDto.class)
+				.setHint(QueryHints.HINT_FETCH_SIZE, FLAT_FETCH_SIZE);
+		if (afterOrderId != null) {
+			query.setParameter("afterOrderId", afterOrderId);
+		}
+		try (Stream<OrderQueryDto> orders = OrderFlatGrouper.group(query.getResultStream())) {
+			return orders.limit(limit).collect(Collectors.toList());
+		}
 	}
 	
 }
@@ -0,0 +1,86 @@
+package hello.jpashop.domain.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import hello.jpashop.domain.exception.NotEnoughStockException;
+import hello.jpashop.domain.repository.ItemRepository;
+
+/*
+ * 타임세일(한정 수량) 상품 재고
+ * open 할 때 item 행에서 판매 수량만큼 미리 차감해 메모리 ShardedStockCounter 로 옮긴다.
+ * 세일 중 주문은 행을 잠그지 않고 카운터에서만 예약한다. close 할 때 팔리지 않은 수량을 행에 되돌린다.
+ * 행은 미리 차감돼 있으므로 세일 중에도 다른 경로가 같은 재고를 중복 판매하지 않는다.
+ * 프로세스가 세일 중에 죽으면 남은 수량은 행에 돌아가지 않는다(덜 팔 뿐 초과 판매는 없다).
+ */
+@Service
+public class FlashSaleStock {
+
+	private final ItemRepository itemRepository;
+	private final int shardCount;
+	private final ConcurrentHashMap<Long, ShardedStockCounter> counters = new ConcurrentHashMap<>();
+
+	public FlashSaleStock(ItemRepository itemRepository,
+			@Value("${jpashop.flash-sale.shards:16}") int shardCount) {
+		this.itemRepository = itemRepository;
+		this.shardCount = shardCount;
+	}
+
+	/*
+	 * item 행에서 quantity 만큼 빼서 세일 재고로 옮긴다. 이미 세일 중이면 그만큼 더 채운다.
+	 * 카운터는 차감이 커밋된 뒤에 열리므로 롤백되면 메모리 재고도 생기지 않는다.
+	 * @throws NotEnoughStockException 행의 재고가 quantity 보다 적을 때
+	 */
+	@Transactional
+	public void open(Long itemId, int quantity) {
+		if (itemRepository.decreaseStock(itemId, quantity) == 0) {
+			throw new NotEnoughStockException("need more stock");
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				ShardedStockCounter existing = counters.putIfAbsent(itemId, new ShardedStockCounter(quantity, shardCount));
+				if (existing != null) {
+					existing.release(quantity);
+				}
+			}
+		});
+	}
+
+	/*
+	 * 팔리지 않은 수량을 item 행에 되돌린다.
+	 * close 와 겹친 주문이 롤백되며 돌려준 수량은 반영되지 않을 수 있다(덜 파는 쪽으로만 틀린다)
+	 * @return 되돌린 수량
+	 */
+	@Transactional
+	public int close(Long itemId) {
+		ShardedStockCounter counter = counters.remove(itemId);
+		if (counter == null) {
+			return 0;
+		}
+		int remaining = counter.drain();
+		if (remaining > 0) {
+			itemRepository.increaseStock(itemId, remaining);
+		}
+		return remaining;
+	}
+
+	public boolean isOpen(Long itemId) {
+		return counters.containsKey(itemId);
+	}
+
+	//세일 중이 아니면 null
+	ShardedStockCounter counter(Long itemId) {
+		return counters.get(itemId);
+	}
+
+	public int remaining(Long itemId) {
+		ShardedStockCounter counter = counters.get(itemId);
+		return counter == null ? 0 : counter.remaining();
+	}
+}
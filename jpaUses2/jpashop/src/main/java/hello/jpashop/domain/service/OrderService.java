@@ -1,6 +1,7 @@
 package hello.jpashop.domain.service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,6 +25,7 @@ public class OrderService {
 	private final OrderRepository orderRepository;
 	private final MemberRepository memberRepository;
 	private final ItemRepository itmeRepository;
+	private final StockReservationService stockReservationService;
 	/*
 	 * 주문
 	 */
@@ -38,8 +40,11 @@ public class OrderService {
 		Delivery delivery = new Delivery();
 		delivery.setAddress(member.getAddress());
 		
+		//재고 예약 (DB 조건부 차감, 동시 주문에도 초과 판매 없음)
+		stockReservationService.reserve(item, count);
+		
 		//주문상품 생성
-		OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
+		OrderItem orderItem = OrderItem.createReservedOrderItem(item, item.getPrice(), count);
 
 		//주문 생성
 		Order order = Order.createOrder(member, delivery, orderItem);
@@ -55,11 +60,23 @@ public class OrderService {
 		//주문 엔티티 조회
 		Order order = this.orderRepository.findOne(orderId);
 		
-		//주문 취소
-		order.cancel();
+		//주문 취소, 재고는 DB 에서 직접 되돌린다
+		order.cancelStatus();
+		for (OrderItem orderItem : order.getOrderItems()) {
+			stockReservationService.release(orderItem.getItem(), orderItem.getCount());
+		}
 	}
 	
 	public List<Order> findOrders(OrderSearch orderSearch){
 		return orderRepository.findAllByCriteria(orderSearch);
 	}
+	
+	/*
+	 * 전체 주문 내보내기
+	 * 커서를 읽는 동안 트랜잭션(읽기 전용)을 유지하고, chunkSize 개씩 넘긴 뒤 영속성 컨텍스트를 비운다.
+	 * 넘겨받은 Order 는 다음 chunk 전에 준영속이 되므로 consumer 안에서만 써야 한다.
+	 */
+	public void exportOrders(int fetchSize, int chunkSize, Consumer<List<Order>> chunkConsumer) {
+		orderRepository.scrollAllWithMemberDelivery(fetchSize, chunkSize, chunkConsumer);
+	}
 }
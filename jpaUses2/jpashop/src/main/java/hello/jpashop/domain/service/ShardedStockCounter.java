@@ -0,0 +1,113 @@
+package hello.jpashop.domain.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/*
+ * 메모리 재고 카운터
+ * 재고를 shard 여러 개에 나눠 두고 스레드마다 다른 shard 에서 CAS 로 뺀다.
+ * 한 값에 모든 스레드가 몰리는 경합을 shard 수만큼 나눈다. 어떤 경우에도 shard 값은 음수가 되지 않는다.
+ */
+public class ShardedStockCounter {
+
+	//shard 하나가 캐시 라인 하나(64바이트)를 쓰도록 int 16칸 간격으로 둔다
+	private static final int STRIDE = 16;
+
+	private final AtomicIntegerArray cells;
+	private final int shardCount;
+
+	public ShardedStockCounter(int quantity, int shardCount) {
+		if (quantity < 0 || shardCount < 1) {
+			throw new IllegalArgumentException("quantity must be >= 0 and shardCount >= 1");
+		}
+		this.shardCount = shardCount;
+		this.cells = new AtomicIntegerArray(shardCount * STRIDE);
+		for (int i = 0; i < shardCount; i++) {
+			cells.set(i * STRIDE, quantity / shardCount + (i < quantity % shardCount ? 1 : 0));
+		}
+	}
+
+	/*
+	 * @return 예약했으면 true, 남은 재고가 모자라면 false
+	 */
+	public boolean tryReserve(int count) {
+		if (count < 1) {
+			throw new IllegalArgumentException("count must be positive: " + count);
+		}
+		int home = home();
+		for (int i = 0; i < shardCount; i++) {
+			if (tryTake((home + i) % shardCount, count)) {
+				return true;
+			}
+		}
+		return reserveAcrossShards(home, count);
+	}
+
+	//shard 하나로 모자라면 여러 shard 에서 나눠 가져오고, 끝내 모자라면 가져온 만큼 돌려준다
+	private boolean reserveAcrossShards(int home, int count) {
+		int[] taken = new int[shardCount];
+		int need = count;
+		for (int i = 0; i < shardCount && need > 0; i++) {
+			int shard = (home + i) % shardCount;
+			int index = shard * STRIDE;
+			while (need > 0) {
+				int current = cells.get(index);
+				if (current == 0) {
+					break;
+				}
+				int take = Math.min(current, need);
+				if (cells.compareAndSet(index, current, current - take)) {
+					taken[shard] += take;
+					need -= take;
+				}
+			}
+		}
+		if (need == 0) {
+			return true;
+		}
+		for (int shard = 0; shard < shardCount; shard++) {
+			if (taken[shard] > 0) {
+				cells.addAndGet(shard * STRIDE, taken[shard]);
+			}
+		}
+		return false;
+	}
+
+	private boolean tryTake(int shard, int count) {
+		int index = shard * STRIDE;
+		while (true) {
+			int current = cells.get(index);
+			if (current < count) {
+				return false;
+			}
+			if (cells.compareAndSet(index, current, current - count)) {
+				return true;
+			}
+		}
+	}
+
+	public void release(int count) {
+		cells.addAndGet(home() * STRIDE, count);
+	}
+
+	//남은 재고를 모두 꺼내 0 으로 만든다
+	public int drain() {
+		int drained = 0;
+		for (int i = 0; i < shardCount; i++) {
+			drained += cells.getAndSet(i * STRIDE, 0);
+		}
+		return drained;
+	}
+
+	public int remaining() {
+		int sum = 0;
+		for (int i = 0; i < shardCount; i++) {
+			sum += cells.get(i * STRIDE);
+		}
+		return sum;
+	}
+
+	private int home() {
+		return ThreadLocalRandom.current().nextInt(shardCount);
+	}
+}
@@ -0,0 +1,66 @@
+package hello.jpashop.domain.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import hello.jpashop.domain.exception.NotEnoughStockException;
+import hello.jpashop.domain.item.Item;
+import hello.jpashop.domain.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+
+/*
+ * 주문 재고 예약
+ * 읽은 재고에서 빼서 변경감지로 덮어쓰면 동시 주문 둘이 같은 재고를 보고 둘 다 성공할 수 있다.
+ * 여기서는 DB 조건부 update 한 문장으로 검사와 차감을 같이 한다. 비관적 락처럼 조회부터 잠그지 않으므로
+ * 행 잠금은 update 부터 커밋까지만 잡힌다.
+ * 타임세일 중인 상품은 행 대신 FlashSaleStock 의 메모리 카운터에서 예약한다.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class StockReservationService {
+
+	private final ItemRepository itemRepository;
+	private final FlashSaleStock flashSaleStock;
+
+	/*
+	 * 영속성 컨텍스트의 item 은 예약 후 DB 값으로 다시 읽힌다.
+	 * @throws NotEnoughStockException 재고 부족
+	 */
+	public void reserve(Item item, int count) {
+		ShardedStockCounter counter = flashSaleStock.counter(item.getId());
+		if (counter != null) {
+			reserveFlashSale(counter, count);
+			return;
+		}
+		if (itemRepository.decreaseStock(item.getId(), count) == 0) {
+			throw new NotEnoughStockException("need more stock");
+		}
+		itemRepository.refresh(item);
+	}
+
+	private void reserveFlashSale(ShardedStockCounter counter, int count) {
+		if (!counter.tryReserve(count)) {
+			throw new NotEnoughStockException("need more stock");
+		}
+		//주문이 롤백되면 메모리 재고는 트랜잭션이 되돌려 주지 않으므로 직접 돌려준다
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				if (status != STATUS_COMMITTED) {
+					counter.release(count);
+				}
+			}
+		});
+	}
+
+	/*
+	 * 주문 취소 시 재고를 item 행에 되돌린다(타임세일로 판 수량도 행으로)
+	 */
+	public void release(Item item, int count) {
+		itemRepository.increaseStock(item.getId(), count);
+		itemRepository.refresh(item);
+	}
+}
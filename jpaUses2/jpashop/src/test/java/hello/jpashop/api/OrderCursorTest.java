@@ -0,0 +1,38 @@
+package hello.jpashop.api;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class OrderCursorTest {
+
+	@Test
+	void encode_decode_왕복() {
+		OrderCursor cursor = new OrderCursor(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_000_000), 42L);
+
+		OrderCursor decoded = OrderCursor.decode(cursor.encode());
+
+		Assertions.assertThat(decoded.getOrderDate()).isEqualTo(cursor.getOrderDate());
+		Assertions.assertThat(decoded.getOrderId()).isEqualTo(42L);
+		Assertions.assertThat(cursor.encode()).doesNotContain("=", "+", "/");
+	}
+
+	@Test
+	void 깨진_토큰은_IllegalArgumentException() {
+		Assertions.assertThatThrownBy(() -> OrderCursor.decode("!!not-base64!!"))
+				.isInstanceOf(IllegalArgumentException.class);
+		Assertions.assertThatThrownBy(() -> OrderCursor.decode(encode("2024-03-01T12:30")))
+				.isInstanceOf(IllegalArgumentException.class);
+		Assertions.assertThatThrownBy(() -> OrderCursor.decode(encode("yesterday|42")))
+				.isInstanceOf(IllegalArgumentException.class);
+		Assertions.assertThatThrownBy(() -> OrderCursor.decode(encode("2024-03-01T12:30|abc")))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private String encode(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,111 @@
+package hello.jpashop.api;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.assertj.core.api.Assertions;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import hello.jpashop.domain.Address;
+import hello.jpashop.domain.item.Book;
+import hello.jpashop.domain.member.Member;
+import hello.jpashop.domain.order.Order;
+import hello.jpashop.domain.service.OrderService;
+
+/*
+ * chunk 두 개를 넘기고 마지막에 덜 찬 chunk 가 남도록 주문을 만든다.
+ */
+@SpringBootTest
+@Transactional
+public class OrderExportTest {
+
+	private static final int CREATED_ORDERS = OrderApiController.EXPORT_CHUNK_SIZE * 2 + 7;
+
+	@Autowired
+	OrderApiController orderApiController;
+
+	@Autowired
+	OrderService orderService;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Autowired
+	EntityManager em;
+
+	long totalOrders;
+
+	@BeforeEach
+	void createOrders() {
+		Member member = new Member();
+		member.setName("회원1");
+		member.setAddress(new Address("서울", "강가", "1231-111"));
+		em.persist(member);
+		Book book = new Book();
+		book.setName("jpa강의");
+		book.setPrice(10000);
+		book.setStockQuantity(CREATED_ORDERS);
+		em.persist(book);
+		for (int i = 0; i < CREATED_ORDERS; i++) {
+			orderService.order(member.getId(), book.getId(), 1);
+		}
+		em.flush();
+		em.clear();
+		totalOrders = em.createQuery("select count(o) from Order o", Long.class).getSingleResult();
+	}
+
+	@Test
+	void 주문마다_json_한줄() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		orderApiController.exportOrders(response);
+
+		String[] lines = response.getContentAsString(StandardCharsets.UTF_8).split("\n");
+		Assertions.assertThat(lines).hasSize((int) totalOrders);
+		long previousId = 0;
+		for (String line : lines) {
+			JsonNode order = objectMapper.readTree(line);
+			long orderId = order.get("orderId").asLong();
+			Assertions.assertThat(orderId).isGreaterThan(previousId);
+			Assertions.assertThat(order.get("orderItems")).isNotEmpty();
+			Assertions.assertThat(order.get("orderItems").get(0).get("itemName").asText()).isNotEmpty();
+			previousId = orderId;
+		}
+	}
+
+	@Test
+	void chunk마다_상품을_채우고_영속성컨텍스트를_비운다() {
+		List<Integer> chunkSizes = new ArrayList<>();
+		List<Integer> managedEntities = new ArrayList<>();
+		Session session = em.unwrap(Session.class);
+
+		orderService.exportOrders(100, OrderApiController.EXPORT_CHUNK_SIZE, orders -> {
+			chunkSizes.add(orders.size());
+			managedEntities.add(session.getStatistics().getEntityCount());
+			for (Order order : orders) {
+				Assertions.assertThat(Hibernate.isInitialized(order.getOrderItems())).isTrue();
+			}
+		});
+
+		int chunkSize = OrderApiController.EXPORT_CHUNK_SIZE;
+		Assertions.assertThat(chunkSizes.stream().mapToLong(Integer::longValue).sum()).isEqualTo(totalOrders);
+		Assertions.assertThat(chunkSizes.subList(0, chunkSizes.size() - 1)).allMatch(size -> size == chunkSize);
+		//마지막 덜 찬 chunk 도 넘어온다
+		Assertions.assertThat(chunkSizes.get(chunkSizes.size() - 1)).isBetween(1, chunkSize);
+		//chunk 하나(주문, 회원, 배송, 주문상품, 상품)만 남는다
+		Assertions.assertThat(managedEntities).allMatch(count -> count <= chunkSize * 5);
+	}
+}
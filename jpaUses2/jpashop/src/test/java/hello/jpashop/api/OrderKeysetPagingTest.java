@@ -0,0 +1,90 @@
+package hello.jpashop.api;
+
+import static java.util.stream.Collectors.toList;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import hello.jpashop.api.OrderApiController.OrderDto;
+import hello.jpashop.api.OrderApiController.OrderPage;
+import hello.jpashop.domain.Address;
+import hello.jpashop.domain.item.Book;
+import hello.jpashop.domain.member.Member;
+import hello.jpashop.domain.order.Order;
+import hello.jpashop.domain.service.OrderService;
+
+@SpringBootTest
+@Transactional
+public class OrderKeysetPagingTest {
+
+	//InitDb 주문보다 뒤에 오도록 먼 미래 날짜
+	private static final LocalDateTime SAME_DATE = LocalDateTime.of(2999, 1, 1, 0, 0);
+
+	@Autowired
+	OrderApiController orderApiController;
+
+	@Autowired
+	OrderService orderService;
+
+	@Autowired
+	EntityManager em;
+
+	@Test
+	void orderDate가_같아도_id로_이어서_빠짐없이_읽는다() {
+		List<Long> orderIds = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			orderIds.add(createOrderAt(SAME_DATE));
+		}
+		em.flush();
+		em.clear();
+		String start = new OrderCursor(SAME_DATE.minusSeconds(1), Long.MAX_VALUE).encode();
+
+		OrderPage first = orderApiController.ordersV3_keyset(start, 2);
+		OrderPage second = orderApiController.ordersV3_keyset(first.getNext(), 2);
+
+		Assertions.assertThat(ids(first)).containsExactly(orderIds.get(0), orderIds.get(1));
+		Assertions.assertThat(first.getNext()).isNotNull();
+		Assertions.assertThat(ids(second)).containsExactly(orderIds.get(2));
+		Assertions.assertThat(second.getNext()).isNull();
+		Assertions.assertThat(second.getData().get(0).getOrderItems()).hasSize(1);
+	}
+
+	@Test
+	void 깨진_cursor는_400() {
+		Assertions.assertThatThrownBy(() -> orderApiController.ordersV3_keyset("!!not-base64!!", 10))
+				.isInstanceOf(ResponseStatusException.class)
+				.extracting(e -> ((ResponseStatusException) e).getStatus())
+				.isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	private List<Long> ids(OrderPage page) {
+		return page.getData().stream().map(OrderDto::getOrderId).collect(toList());
+	}
+
+	private Long createOrderAt(LocalDateTime orderDate) {
+		Member member = new Member();
+		member.setName("회원1");
+		member.setAddress(new Address("서울", "강가", "1231-111"));
+		em.persist(member);
+		Book book = new Book();
+		book.setName("jpa강의");
+		book.setPrice(10000);
+		book.setStockQuantity(10);
+		em.persist(book);
+
+		Long orderId = orderService.order(member.getId(), book.getId(), 1);
+		em.find(Order.class, orderId).setOrderDate(orderDate);
+		return orderId;
+	}
+}
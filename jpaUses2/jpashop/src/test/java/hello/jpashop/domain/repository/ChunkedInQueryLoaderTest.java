@@ -0,0 +1,99 @@
+package hello.jpashop.domain.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class ChunkedInQueryLoaderTest {
+
+	ChunkedInQueryLoader loader = new ChunkedInQueryLoader(null, null, 8, 2);
+
+	@AfterEach
+	void shutdown() {
+		loader.shutdown();
+	}
+
+	@Test
+	void chunk크기는_2의거듭제곱으로_padding() {
+		Assertions.assertThat(loader.paddedSize(1)).isEqualTo(1);
+		Assertions.assertThat(loader.paddedSize(3)).isEqualTo(4);
+		Assertions.assertThat(loader.paddedSize(5)).isEqualTo(8);
+		Assertions.assertThat(loader.paddedSize(8)).isEqualTo(8);
+	}
+
+	@Test
+	void 중복제거후_chunkSize씩_자르고_마지막id로_채운다() {
+		List<Long> ids = new ArrayList<>();
+		for (long i = 1; i <= 11; i++) {
+			ids.add(i);
+		}
+		ids.add(3L);
+
+		List<List<Long>> chunks = loader.split(ids);
+
+		Assertions.assertThat(chunks).hasSize(2);
+		Assertions.assertThat(chunks.get(0)).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L);
+		Assertions.assertThat(chunks.get(1)).containsExactly(9L, 10L, 11L, 11L);
+		List<Long> distinct = chunks.stream().flatMap(List::stream).distinct().sorted().collect(Collectors.toList());
+		Assertions.assertThat(distinct).hasSize(11);
+	}
+
+	@Test
+	void 빈목록은_조회하지_않는다() {
+		Assertions.assertThat(loader.split(Arrays.asList())).isEmpty();
+		Assertions.assertThat(loader.loadGrouped(null, new ArrayList<Long>(), (em, chunk) -> {
+			throw new AssertionError("must not query");
+		}, (Long v) -> v)).isEmpty();
+	}
+
+	@Test
+	void 여러_chunk는_로더스레드에서_조회해_key별로_합친다() {
+		List<Long> ids = new ArrayList<>();
+		for (long i = 1; i <= 20; i++) {
+			ids.add(i);
+		}
+		Set<String> threads = ConcurrentHashMap.newKeySet();
+
+		//id 하나에 행 2개, padding 으로 중복된 id 는 in 조회처럼 한 번만 나온다
+		Map<Long, List<String>> result = loader.loadGrouped(ids,
+				chunk -> {
+					throw new AssertionError("multi-chunk must not run inline");
+				},
+				chunk -> {
+					threads.add(Thread.currentThread().getName());
+					return chunk.stream().distinct()
+							.flatMap(id -> Stream.of(id + ":a", id + ":b"))
+							.collect(Collectors.toList());
+				},
+				(String row) -> Long.valueOf(row.substring(0, row.indexOf(':'))));
+
+		Assertions.assertThat(result).hasSize(20);
+		Assertions.assertThat(result.get(1L)).containsExactly("1:a", "1:b");
+		Assertions.assertThat(result.get(20L)).containsExactly("20:a", "20:b");
+		Assertions.assertThat(threads).allMatch(name -> name.startsWith("in-loader-"));
+	}
+
+	@Test
+	void chunk_하나가_실패하면_원래_예외를_던진다() {
+		List<Long> ids = new ArrayList<>();
+		for (long i = 1; i <= 20; i++) {
+			ids.add(i);
+		}
+
+		Assertions.assertThatThrownBy(() -> loader.loadGrouped(ids, chunk -> List.<Long>of(), chunk -> {
+			if (chunk.contains(9L)) {
+				throw new IllegalStateException("chunk failed");
+			}
+			return chunk;
+		}, (Long v) -> v)).isInstanceOf(IllegalStateException.class).hasMessage("chunk failed");
+	}
+}
@@ -0,0 +1,58 @@
+package hello.jpashop.domain.repository.order.query;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import hello.jpashop.domain.Address;
+import hello.jpashop.domain.order.OrderStatus;
+
+public class OrderFlatGrouperTest {
+
+	@Test
+	void 같은주문id_구간마다_하나로_묶고_순서를_유지한다() {
+		List<OrderQueryDto> orders = OrderFlatGrouper.group(Stream.of(
+				row(1L, "JPA1 BOOK"), row(1L, "JPA2 BOOK"),
+				row(2L, "SPRING1 BOOK"),
+				row(3L, "SPRING2 BOOK"), row(3L, "SPRING3 BOOK")))
+				.collect(Collectors.toList());
+
+		Assertions.assertThat(orders).extracting(OrderQueryDto::getOrderId).containsExactly(1L, 2L, 3L);
+		Assertions.assertThat(orders.get(0).getOrderItems()).extracting(OrderItemQueryDto::getItemName)
+				.containsExactly("JPA1 BOOK", "JPA2 BOOK");
+		Assertions.assertThat(orders.get(1).getOrderItems()).hasSize(1);
+		Assertions.assertThat(orders.get(2).getOrderItems()).hasSize(2);
+	}
+
+	@Test
+	void limit_이후의_행은_읽지_않는다() {
+		AtomicInteger read = new AtomicInteger();
+		//주문마다 2행씩 끝없이
+		Stream<OrderFlatDto> rows = Stream.iterate(0L, i -> i + 1)
+				.map(i -> row(i / 2 + 1, i % 2 == 0 ? "A" : "B"))
+				.peek(r -> read.incrementAndGet());
+
+		List<OrderQueryDto> orders = OrderFlatGrouper.group(rows).limit(3).collect(Collectors.toList());
+
+		Assertions.assertThat(orders).hasSize(3);
+		//3번째 주문 끝을 확인하려고 4번째 주문 첫 행까지만 읽는다
+		Assertions.assertThat(read.get()).isEqualTo(7);
+	}
+
+	@Test
+	void 정렬되지_않은_행은_거부한다() {
+		Stream<OrderFlatDto> rows = Stream.of(row(1L, "A"), row(2L, "B"), row(1L, "C"));
+
+		Assertions.assertThatThrownBy(() -> OrderFlatGrouper.group(rows).collect(Collectors.toList()))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	private OrderFlatDto row(Long orderId, String itemName) {
+		return new OrderFlatDto(orderId, "userA", null, OrderStatus.ORDER, new Address("서울", "1", "1111"), itemName,
+				10000, 1);
+	}
+}
@@ -0,0 +1,185 @@
+package hello.jpashop.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManager;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import hello.jpashop.domain.Address;
+import hello.jpashop.domain.exception.NotEnoughStockException;
+import hello.jpashop.domain.item.Book;
+import hello.jpashop.domain.item.Item;
+import hello.jpashop.domain.member.Member;
+import hello.jpashop.domain.service.FlashSaleStock;
+import hello.jpashop.domain.service.OrderService;
+
+/*
+ * 재고가 한정된 상품 하나에 동시에 주문을 몰아 넣는다.
+ * 트랜잭션마다 실제로 커밋해야 하므로 @Transactional 을 붙이지 않는다.
+ */
+@SpringBootTest
+public class StockReservationLoadTest {
+
+	private static final Logger log = LoggerFactory.getLogger(StockReservationLoadTest.class);
+
+	private static final int THREADS = 16;
+	private static final int ATTEMPTS = 400;
+
+	@Autowired
+	OrderService orderService;
+
+	@Autowired
+	FlashSaleStock flashSaleStock;
+
+	@Autowired
+	EntityManager em;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Test
+	void 동시주문_초과판매없음() throws Exception {
+		int stock = 100;
+		Long memberId = createMember();
+		Long itemId = createBook(stock);
+
+		Result result = hammer(memberId, itemId);
+
+		Assertions.assertThat(result.ordered).isEqualTo(stock);
+		Assertions.assertThat(result.rejected).isEqualTo(ATTEMPTS - stock);
+		Assertions.assertThat(stockOf(itemId)).isZero();
+		Assertions.assertThat(orderedCountOf(itemId)).isEqualTo((long) stock);
+		log.info("conditional update: {} orders in {} ms, {} orders/s", result.ordered, result.elapsedMillis,
+				result.ordersPerSecond());
+	}
+
+	@Test
+	void 타임세일_동시주문_초과판매없음() throws Exception {
+		Long memberId = createMember();
+		Long itemId = createBook(150);
+		flashSaleStock.open(itemId, 100);
+		Assertions.assertThat(stockOf(itemId)).isEqualTo(50);
+
+		Result result = hammer(memberId, itemId);
+		int returned = flashSaleStock.close(itemId);
+
+		Assertions.assertThat(result.ordered).isEqualTo(100);
+		Assertions.assertThat(returned).isZero();
+		Assertions.assertThat(stockOf(itemId)).isEqualTo(50);
+		Assertions.assertThat(orderedCountOf(itemId)).isEqualTo(100L);
+		log.info("flash sale counter: {} orders in {} ms, {} orders/s", result.ordered, result.elapsedMillis,
+				result.ordersPerSecond());
+	}
+
+	//세일 수량이 다 팔리지 않고 끝나면 남은 수량이 행으로 돌아온다
+	@Test
+	void 타임세일_마감_남은수량_반환() throws Exception {
+		int saleQuantity = ATTEMPTS + 200;
+		Long memberId = createMember();
+		Long itemId = createBook(1000);
+		flashSaleStock.open(itemId, saleQuantity);
+		Assertions.assertThat(stockOf(itemId)).isEqualTo(1000 - saleQuantity);
+
+		Result result = hammer(memberId, itemId);
+		Assertions.assertThat(flashSaleStock.remaining(itemId)).isEqualTo(saleQuantity - ATTEMPTS);
+		int returned = flashSaleStock.close(itemId);
+
+		Assertions.assertThat(result.ordered).isEqualTo(ATTEMPTS);
+		Assertions.assertThat(result.rejected).isZero();
+		Assertions.assertThat(returned).isEqualTo(saleQuantity - ATTEMPTS);
+		Assertions.assertThat(flashSaleStock.isOpen(itemId)).isFalse();
+		Assertions.assertThat(stockOf(itemId)).isEqualTo(1000 - ATTEMPTS);
+		Assertions.assertThat(orderedCountOf(itemId)).isEqualTo((long) ATTEMPTS);
+	}
+
+	private Result hammer(Long memberId, Long itemId) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger ordered = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < ATTEMPTS; i++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				try {
+					orderService.order(memberId, itemId, 1);
+					ordered.incrementAndGet();
+				} catch (NotEnoughStockException e) {
+					rejected.incrementAndGet();
+				}
+				return null;
+			}));
+		}
+		long begin = System.nanoTime();
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(60, TimeUnit.SECONDS);
+		}
+		long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+		executor.shutdown();
+		return new Result(ordered.get(), rejected.get(), elapsedMillis);
+	}
+
+	private Long createMember() {
+		return new TransactionTemplate(transactionManager).execute(status -> {
+			Member member = new Member();
+			member.setName("회원1");
+			member.setAddress(new Address("서울", "강가", "1231-111"));
+			em.persist(member);
+			return member.getId();
+		});
+	}
+
+	private Long createBook(int stockQuantity) {
+		return new TransactionTemplate(transactionManager).execute(status -> {
+			Item book = new Book();
+			book.setName("hot item");
+			book.setPrice(10000);
+			book.setStockQuantity(stockQuantity);
+			em.persist(book);
+			return book.getId();
+		});
+	}
+
+	private int stockOf(Long itemId) {
+		return new TransactionTemplate(transactionManager).execute(status -> em.find(Item.class, itemId).getStockQuantity());
+	}
+
+	private long orderedCountOf(Long itemId) {
+		return new TransactionTemplate(transactionManager).execute(status -> em.createQuery(
+				"select coalesce(sum(oi.count), 0) from OrderItem oi where oi.item.id = :itemId", Long.class)
+				.setParameter("itemId", itemId)
+				.getSingleResult());
+	}
+
+	static class Result {
+		final int ordered;
+		final int rejected;
+		final long elapsedMillis;
+
+		Result(int ordered, int rejected, long elapsedMillis) {
+			this.ordered = ordered;
+			this.rejected = rejected;
+			this.elapsedMillis = elapsedMillis;
+		}
+
+		long ordersPerSecond() {
+			return ordered * 1000L / elapsedMillis;
+		}
+	}
+}
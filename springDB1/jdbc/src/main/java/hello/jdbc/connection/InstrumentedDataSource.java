@@ -0,0 +1,304 @@
+package hello.jdbc.connection;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * 커넥션 풀(HikariDataSource 등)을 감싸서 Micrometer 로 아래를 기록한다.
+ * 
+ * jdbc.connection.acquire : getConnection() 대기 시간 (히스토그램)
+ * jdbc.connection.hold : 얻은 뒤 close() 까지 잡고 있던 시간 (히스토그램)
+ * jdbc.statement.execute : SQL 문자열별 실행 시간, 태그 수가 maxSqlTags 를 넘으면 나머지는 sql=other
+ * jdbc.connection.open : 지금 잡혀 있는 커넥션 수
+ * jdbc.connection.leak.suspected : leakThreshold 를 넘겨 잡혀 있던 커넥션 수
+ * 
+ * leakThreshold 를 주면 getConnection() 마다 호출 위치 스택을 저장해 두고, 넘긴 커넥션을 한 번씩 경고로 남긴다.
+ * 스택 저장 비용이 있으므로 Duration.ZERO 로 끌 수 있다.
+ * 저장소는 DataSourceUtils 로 커넥션을 얻으므로 이 DataSource 를 넘기기만 하면 된다.
+ */
+@Slf4j
+public class InstrumentedDataSource extends DelegatingDataSource implements AutoCloseable {
+
+	public static final String OTHER_SQL = "other";
+	public static final int DEFAULT_MAX_SQL_TAGS = 200;
+
+	private final MeterRegistry registry;
+	private final Timer acquireTimer;
+	private final Timer holdTimer;
+	private final Counter acquireFailures;
+	private final Counter leakCounter;
+	private final ConcurrentHashMap<String, Timer> statementTimers = new ConcurrentHashMap<>();
+	private final Set<TrackedConnection> openConnections = ConcurrentHashMap.newKeySet();
+	private final long leakThresholdNanos;
+	private final int maxSqlTags;
+	private final ScheduledExecutorService leakDetector;
+
+	public InstrumentedDataSource(DataSource targetDataSource, MeterRegistry registry, Duration leakThreshold) {
+		this(targetDataSource, registry, leakThreshold, DEFAULT_MAX_SQL_TAGS);
+	}
+
+	public InstrumentedDataSource(DataSource targetDataSource, MeterRegistry registry, Duration leakThreshold,
+			int maxSqlTags) {
+		super(targetDataSource);
+		this.registry = registry;
+		this.leakThresholdNanos = leakThreshold.toNanos();
+		this.maxSqlTags = maxSqlTags;
+		this.acquireTimer = Timer.builder("jdbc.connection.acquire")
+				.description("time waiting for a connection from the pool")
+				.publishPercentileHistogram()
+				.register(registry);
+		this.holdTimer = Timer.builder("jdbc.connection.hold")
+				.description("time between getConnection() and close()")
+				.publishPercentileHistogram()
+				.register(registry);
+		this.acquireFailures = Counter.builder("jdbc.connection.acquire.failed").register(registry);
+		this.leakCounter = Counter.builder("jdbc.connection.leak.suspected").register(registry);
+		Gauge.builder("jdbc.connection.open", openConnections, Set::size).register(registry);
+
+		if (leakThresholdNanos > 0) {
+			long periodMillis = Math.max(10, leakThreshold.toMillis() / 2);
+			this.leakDetector = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "jdbc-leak-detector");
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.leakDetector.scheduleAtFixedRate(this::detectLeaks, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+		} else {
+			this.leakDetector = null;
+		}
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		long start = System.nanoTime();
+		Connection con;
+		try {
+			con = super.getConnection();
+		} catch (SQLException | RuntimeException e) {
+			acquireFailures.increment();
+			throw e;
+		}
+		return track(con, start);
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		long start = System.nanoTime();
+		Connection con;
+		try {
+			con = super.getConnection(username, password);
+		} catch (SQLException | RuntimeException e) {
+			acquireFailures.increment();
+			throw e;
+		}
+		return track(con, start);
+	}
+
+	private Connection track(Connection con, long start) {
+		long acquired = System.nanoTime();
+		acquireTimer.record(acquired - start, TimeUnit.NANOSECONDS);
+		Throwable acquiredAt = leakThresholdNanos > 0 ? new Throwable("connection acquired here") : null;
+		TrackedConnection tracked = new TrackedConnection(con, acquired, acquiredAt);
+		openConnections.add(tracked);
+		return tracked.proxy;
+	}
+
+	/*
+	 * 지금 leakThreshold 를 넘겨 잡혀 있는 커넥션들
+	 */
+	public List<LeakSuspect> getLeakSuspects() {
+		List<LeakSuspect> suspects = new ArrayList<>();
+		if (leakThresholdNanos <= 0) {
+			return suspects;
+		}
+		long now = System.nanoTime();
+		for (TrackedConnection tracked : openConnections) {
+			long heldNanos = now - tracked.acquiredNanos;
+			if (heldNanos > leakThresholdNanos) {
+				suspects.add(new LeakSuspect(tracked.threadName, TimeUnit.NANOSECONDS.toMillis(heldNanos),
+						tracked.acquiredAt.getStackTrace()));
+			}
+		}
+		return suspects;
+	}
+
+	private void detectLeaks() {
+		long now = System.nanoTime();
+		for (TrackedConnection tracked : openConnections) {
+			long heldNanos = now - tracked.acquiredNanos;
+			if (heldNanos > leakThresholdNanos && !tracked.reported) {
+				tracked.reported = true;
+				leakCounter.increment();
+				log.warn("connection held for {}ms by thread {}, possible leak", TimeUnit.NANOSECONDS.toMillis(heldNanos),
+						tracked.threadName, tracked.acquiredAt);
+			}
+		}
+	}
+
+	private Timer statementTimer(String sql) {
+		Timer timer = statementTimers.get(sql);
+		if (timer != null) {
+			return timer;
+		}
+		String tag = statementTimers.size() < maxSqlTags ? sql : OTHER_SQL;
+		return statementTimers.computeIfAbsent(tag, s -> Timer.builder("jdbc.statement.execute")
+				.description("statement execution time per SQL")
+				.tag("sql", s)
+				.register(registry));
+	}
+
+	//감싸고 있는 풀은 만든 쪽에서 닫는다
+	@Override
+	public void close() {
+		if (leakDetector != null) {
+			leakDetector.shutdownNow();
+		}
+	}
+
+	@Getter
+	public static class LeakSuspect {
+		private final String threadName;
+		private final long heldMillis;
+		private final StackTraceElement[] acquiredAt;
+
+		LeakSuspect(String threadName, long heldMillis, StackTraceElement[] acquiredAt) {
+			this.threadName = threadName;
+			this.heldMillis = heldMillis;
+			this.acquiredAt = acquiredAt;
+		}
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getTargetException();
+		}
+	}
+
+	private class TrackedConnection implements InvocationHandler {
+		private final Connection target;
+		private final Connection proxy;
+		private final long acquiredNanos;
+		private final Throwable acquiredAt;
+		private final String threadName;
+		private volatile boolean reported;
+		private boolean closed;
+
+		TrackedConnection(Connection target, long acquiredNanos, Throwable acquiredAt) {
+			this.target = target;
+			this.acquiredNanos = acquiredNanos;
+			this.acquiredAt = acquiredAt;
+			this.threadName = Thread.currentThread().getName();
+			this.proxy = (Connection) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, this);
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "close":
+				if (!closed) {
+					closed = true;
+					holdTimer.record(System.nanoTime() - acquiredNanos, TimeUnit.NANOSECONDS);
+					openConnections.remove(this);
+				}
+				return InstrumentedDataSource.invoke(target, method, args);
+			case "prepareStatement":
+			case "prepareCall":
+				return new TrackedStatement((Statement) InstrumentedDataSource.invoke(target, method, args),
+						(String) args[0], this).proxy;
+			case "createStatement":
+				return new TrackedStatement((Statement) InstrumentedDataSource.invoke(target, method, args), null,
+						this).proxy;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "Instrumented[" + target + "]";
+			default:
+				return InstrumentedDataSource.invoke(target, method, args);
+			}
+		}
+	}
+
+	private class TrackedStatement implements InvocationHandler {
+		private final Statement target;
+		private final Statement proxy;
+		private final String sql;
+		private final TrackedConnection connection;
+
+		TrackedStatement(Statement target, String sql, TrackedConnection connection) {
+			this.target = target;
+			this.sql = sql;
+			this.connection = connection;
+			Class<?> type = target instanceof CallableStatement ? CallableStatement.class
+					: target instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+			this.proxy = (Statement) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(),
+					new Class<?>[] { type }, this);
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (name.startsWith("execute")) {
+				long start = System.nanoTime();
+				try {
+					return InstrumentedDataSource.invoke(target, method, args);
+				} finally {
+					statementTimer(sqlOf(args)).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+				}
+			}
+			switch (name) {
+			case "getConnection":
+				return connection.proxy;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "Instrumented[" + target + "]";
+			default:
+				return InstrumentedDataSource.invoke(target, method, args);
+			}
+		}
+
+		//PreparedStatement 는 만들 때의 SQL, Statement 는 execute(sql) 인자
+		private String sqlOf(Object[] args) {
+			if (sql != null) {
+				return sql;
+			}
+			if (args != null && args.length > 0 && args[0] instanceof String) {
+				return (String) args[0];
+			}
+			return OTHER_SQL;
+		}
+	}
+}
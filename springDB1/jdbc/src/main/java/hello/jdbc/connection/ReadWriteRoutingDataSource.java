@@ -0,0 +1,303 @@
+package hello.jdbc.connection;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * 읽기는 복제본(replica), 쓰기는 원본(primary)으로 보내는 DataSource
+ * 
+ * getConnection() 은 실제 커넥션 없이 프록시만 돌려주고, 첫 SQL 을 만들 때 대상을 고른다.
+ * (LazyConnectionDataSourceProxy 와 같은 방식이라 트랜잭션 매니저가 setReadOnly/setAutoCommit 을 먼저 불러도 된다)
+ * - @Transactional(readOnly = true) : setReadOnly(true) 가 불린 커넥션 -> 복제본
+ * - 트랜잭션 밖(autocommit)의 select (findById 등) -> 복제본
+ * - 잠금 읽기(select ... for update / for share / lock in share mode) -> 원본
+ * - 그 외(쓰기 트랜잭션, autocommit 쓰기) -> 원본
+ * getConnection(username, password) 로 얻은 커넥션은 원본, 복제본 모두 같은 계정으로 연다.
+ * 
+ * 복제본은 건강한 것들 사이에서 돌아가며 쓰고, healthCheckInterval 마다 isValid 로 다시 확인한다.
+ * 건강한 복제본이 없으면 원본에서 읽는다.
+ * stickyWindow 를 주면 원본에 쓴 스레드는 그 시간 동안 원본에서 읽는다(복제 지연 중에도 자기가 쓴 값을 본다).
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+	public static final Duration DEFAULT_HEALTH_CHECK_INTERVAL = Duration.ofSeconds(5);
+	private static final int VALID_TIMEOUT_SECONDS = 1;
+	private static final Pattern LOCKING_READ = Pattern.compile(
+			"\\bfor\\s+(no\\s+key\\s+)?(update|share|key\\s+share)\\b|\\block\\s+in\\s+share\\s+mode\\b",
+			Pattern.CASE_INSENSITIVE);
+
+	private final DataSource primary;
+	private final Replica[] replicas;
+	private final long stickyWindowNanos;
+	private final ThreadLocal<Long> lastWriteNanos = new ThreadLocal<>();
+	private final AtomicInteger nextReplica = new AtomicInteger();
+	private final ScheduledExecutorService healthChecker;
+	private final LongAdder primaryConnections = new LongAdder();
+	private final LongAdder replicaConnections = new LongAdder();
+
+	public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration stickyWindow) {
+		this(primary, replicas, stickyWindow, DEFAULT_HEALTH_CHECK_INTERVAL);
+	}
+
+	public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration stickyWindow,
+			Duration healthCheckInterval) {
+		if (healthCheckInterval.isZero() || healthCheckInterval.isNegative()) {
+			throw new IllegalArgumentException("healthCheckInterval must be positive: " + healthCheckInterval);
+		}
+		this.primary = primary;
+		this.replicas = new Replica[replicas.size()];
+		for (int i = 0; i < replicas.size(); i++) {
+			this.replicas[i] = new Replica(i, replicas.get(i));
+		}
+		this.stickyWindowNanos = stickyWindow.toNanos();
+		this.healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "replica-health-check");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long periodMillis = healthCheckInterval.toMillis();
+		healthChecker.scheduleWithFixedDelay(this::checkReplicas, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return routingConnection(new RoutingConnection(null, null));
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return routingConnection(new RoutingConnection(username, password));
+	}
+
+	private Connection routingConnection(RoutingConnection handler) {
+		return (Connection) Proxy.newProxyInstance(ReadWriteRoutingDataSource.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, handler);
+	}
+
+	public long getPrimaryConnectionCount() {
+		return primaryConnections.sum();
+	}
+
+	public long getReplicaConnectionCount() {
+		return replicaConnections.sum();
+	}
+
+	public int getHealthyReplicaCount() {
+		int count = 0;
+		for (Replica replica : replicas) {
+			if (replica.healthy) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	//감싸고 있는 풀들은 만든 쪽에서 닫는다
+	@Override
+	public void close() {
+		healthChecker.shutdownNow();
+	}
+
+	void checkReplicas() {
+		for (Replica replica : replicas) {
+			boolean healthy;
+			try (Connection con = replica.dataSource.getConnection()) {
+				healthy = con.isValid(VALID_TIMEOUT_SECONDS);
+			} catch (SQLException | RuntimeException e) {
+				healthy = false;
+			}
+			if (replica.healthy != healthy) {
+				log.warn("replica[{}] is now {}", replica.index, healthy ? "healthy" : "unhealthy");
+				replica.healthy = healthy;
+			}
+		}
+	}
+
+	private boolean stickyToPrimary() {
+		Long lastWrite = lastWriteNanos.get();
+		return lastWrite != null && System.nanoTime() - lastWrite < stickyWindowNanos;
+	}
+
+	private void markWrite() {
+		if (stickyWindowNanos > 0) {
+			lastWriteNanos.set(System.nanoTime());
+		}
+	}
+
+	//건강한 복제본 중 다음 차례, 없거나 모두 실패하면 null
+	private Connection replicaConnection(String username, String password) {
+		for (int attempt = 0; attempt < replicas.length; attempt++) {
+			Replica replica = replicas[Math.floorMod(nextReplica.getAndIncrement(), replicas.length)];
+			if (!replica.healthy) {
+				continue;
+			}
+			try {
+				Connection con = open(replica.dataSource, username, password);
+				replicaConnections.increment();
+				return con;
+			} catch (SQLException | RuntimeException e) {
+				log.warn("replica[{}] getConnection failed, marking unhealthy", replica.index, e);
+				replica.healthy = false;
+			}
+		}
+		return null;
+	}
+
+	private static Connection open(DataSource dataSource, String username, String password) throws SQLException {
+		return username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+	}
+
+	private static boolean isSelect(String sql) {
+		String trimmed = sql.stripLeading();
+		return trimmed.regionMatches(true, 0, "select", 0, 6);
+	}
+
+	//잠금 읽기는 원본의 행을 잠가야 의미가 있다
+	static boolean isLockingRead(String sql) {
+		return LOCKING_READ.matcher(sql).find();
+	}
+
+	private static class Replica {
+		private final int index;
+		private final DataSource dataSource;
+		private volatile boolean healthy = true;
+
+		Replica(int index, DataSource dataSource) {
+			this.index = index;
+			this.dataSource = dataSource;
+		}
+	}
+
+	/*
+	 * 대상을 고르기 전 setAutoCommit/setReadOnly/setTransactionIsolation 은 기억해 두었다가 고른 커넥션에 적용한다.
+	 */
+	private class RoutingConnection implements InvocationHandler {
+		private final String username;
+		private final String password;
+		private Connection target;
+		private boolean targetIsReplica;
+		private boolean autoCommit = true;
+		private boolean readOnly;
+		private Integer isolation;
+		private boolean closed;
+
+		RoutingConnection(String username, String password) {
+			this.username = username;
+			this.password = password;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "Routing[" + (target == null ? "not resolved" : target) + "]";
+			case "isClosed":
+				return closed;
+			case "close":
+				closed = true;
+				if (target != null) {
+					target.close();
+				}
+				return null;
+			case "setAutoCommit":
+				autoCommit = (Boolean) args[0];
+				return passIfResolved(method, args);
+			case "getAutoCommit":
+				return target == null ? autoCommit : invoke(target, method, args);
+			case "setReadOnly":
+				readOnly = (Boolean) args[0];
+				return passIfResolved(method, args);
+			case "isReadOnly":
+				return target == null ? readOnly : invoke(target, method, args);
+			case "setTransactionIsolation":
+				isolation = (Integer) args[0];
+				return passIfResolved(method, args);
+			case "commit":
+			case "rollback":
+				//아무 SQL 도 없었던 트랜잭션
+				if (target == null && (args == null || args.length == 0)) {
+					return null;
+				}
+				return invoke(resolve(null), method, args);
+			case "prepareStatement":
+			case "prepareCall":
+				return invoke(resolve((String) args[0]), method, args);
+			default:
+				return invoke(resolve(null), method, args);
+			}
+		}
+
+		private Object passIfResolved(Method method, Object[] args) throws Throwable {
+			return target == null ? null : invoke(target, method, args);
+		}
+
+		private Connection resolve(String sql) throws SQLException {
+			if (closed) {
+				throw new SQLException("connection is closed");
+			}
+			boolean locking = sql != null && isLockingRead(sql);
+			boolean read = !locking && (readOnly || (autoCommit && sql != null && isSelect(sql)));
+			if (target != null) {
+				if (!targetIsReplica || read || !autoCommit) {
+					return target;
+				}
+				//autocommit 복제본 커넥션에 쓰기가 오면 원본으로 갈아탄다
+				target.close();
+				target = null;
+			}
+			if (read && !stickyToPrimary()) {
+				target = replicaConnection(username, password);
+				targetIsReplica = target != null;
+			}
+			if (target == null) {
+				target = open(primary, username, password);
+				targetIsReplica = false;
+				primaryConnections.increment();
+				if (!read) {
+					markWrite();
+				}
+			}
+			if (!autoCommit) {
+				target.setAutoCommit(false);
+			}
+			if (readOnly) {
+				target.setReadOnly(true);
+			}
+			if (isolation != null) {
+				target.setTransactionIsolation(isolation);
+			}
+			return target;
+		}
+
+		private Object invoke(Connection con, Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(con, args);
+			} catch (InvocationTargetException e) {
+				throw e.getTargetException();
+			}
+		}
+	}
+}
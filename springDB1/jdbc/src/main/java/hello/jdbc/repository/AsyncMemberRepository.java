@@ -0,0 +1,128 @@
+package hello.jdbc.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import hello.jdbc.domain.Member;
+
+/*
+ * MemberRepository 를 CompletableFuture 로 감싼 비동기 파사드
+ * 서로 관계없는 조회(이체의 두 findById 등)를 동시에 보낼 수 있다.
+ * 
+ * 동시에 DB 로 나가는 호출은 maxConcurrency(보통 커넥션 풀 크기)개로 제한한다.
+ * 실행기를 넘기지 않으면 maxConcurrency 크기의 데몬 스레드 풀을 만들고, 풀 크기가 곧 제한이다(이 모듈은 Java 17).
+ * 실행기를 넘기면(Java 21 이상이면 Executors.newVirtualThreadPerTaskExecutor()) 스레드 수로는 제한되지 않으므로
+ * Semaphore 로 제한한다. synchronized 에 걸려 가상 스레드가 캐리어 스레드를 붙잡지 않는다.
+ * 
+ * 다른 스레드에서 실행되므로 호출한 쪽의 트랜잭션에는 참여하지 않는다.
+ */
+public class AsyncMemberRepository implements AutoCloseable {
+
+	private final MemberRepository target;
+	private final Executor executor;
+	private final ExecutorService ownedExecutor;
+	//넘겨받은 실행기일 때만, 직접 만든 풀이면 null
+	private final Semaphore permits;
+
+	public AsyncMemberRepository(MemberRepository target, int maxConcurrency) {
+		this(target, maxConcurrency, null);
+	}
+
+	public AsyncMemberRepository(MemberRepository target, int maxConcurrency, Executor executor) {
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+		}
+		this.target = target;
+		if (executor == null) {
+			AtomicInteger sequence = new AtomicInteger();
+			this.ownedExecutor = Executors.newFixedThreadPool(maxConcurrency, r -> {
+				Thread thread = new Thread(r, "async-member-repository-" + sequence.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.executor = ownedExecutor;
+			this.permits = null;
+		} else {
+			this.ownedExecutor = null;
+			this.executor = executor;
+			this.permits = new Semaphore(maxConcurrency, true);
+		}
+	}
+
+	public CompletableFuture<Member> findById(String memberId) {
+		return submit(() -> target.findById(memberId));
+	}
+
+	//입력 순서대로, 하나라도 실패하면 전체가 실패
+	public CompletableFuture<List<Member>> findAllById(List<String> memberIds) {
+		List<CompletableFuture<Member>> futures = new ArrayList<>(memberIds.size());
+		for (String memberId : memberIds) {
+			futures.add(findById(memberId));
+		}
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(v -> {
+			List<Member> members = new ArrayList<>(futures.size());
+			for (CompletableFuture<Member> future : futures) {
+				members.add(future.join());
+			}
+			return members;
+		});
+	}
+
+	public CompletableFuture<Member> save(Member member) {
+		return submit(() -> target.save(member));
+	}
+
+	public CompletableFuture<Void> update(String memberId, int money) {
+		return submit(() -> {
+			target.update(memberId, money);
+			return null;
+		});
+	}
+
+	public CompletableFuture<Void> delete(String memberId) {
+		return submit(() -> {
+			target.delete(memberId);
+			return null;
+		});
+	}
+
+	//넘겨받은 실행기일 때 남은 허가 수, 직접 만든 풀이면 -1
+	public int getAvailablePermits() {
+		return permits == null ? -1 : permits.availablePermits();
+	}
+
+	private <T> CompletableFuture<T> submit(Supplier<T> call) {
+		if (permits == null) {
+			return CompletableFuture.supplyAsync(call, executor);
+		}
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				permits.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new CompletionException(e);
+			}
+			try {
+				return call.get();
+			} finally {
+				permits.release();
+			}
+		}, executor);
+	}
+
+	//넘겨받은 실행기는 만든 쪽에서 닫는다
+	@Override
+	public void close() {
+		if (ownedExecutor != null) {
+			ownedExecutor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package hello.jdbc.repository;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.springframework.jdbc.support.JdbcUtils;
+
+import hello.jdbc.domain.Member;
+
+/*
+ * saveAll / updateAll 공통 처리
+ * batchSize 건씩 executeBatch, 결과는 입력 순서대로 합친다.
+ * 배치 중 실패하면 전체 입력 기준 updateCounts 를 담은 BatchUpdateException 을 던진다.
+ * 커넥션은 호출한 쪽에서 얻고 반납한다(트랜잭션 동기화 유지).
+ */
+abstract class BatchSupport {
+
+	interface MemberBinder {
+		void bind(PreparedStatement pstmt, Member member) throws SQLException;
+	}
+
+	static int[] executeBatch(Connection con, String sql, List<Member> members, int batchSize, MemberBinder binder)
+			throws SQLException {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+		}
+		int[] result = new int[members.size()];
+		PreparedStatement pstmt = null;
+		try {
+			pstmt = con.prepareStatement(sql);
+			int chunkStart = 0;
+			int pending = 0;
+			for (int i = 0; i < members.size(); i++) {
+				binder.bind(pstmt, members.get(i));
+				pstmt.addBatch();
+				pending++;
+				if (pending == batchSize || i == members.size() - 1) {
+					flush(pstmt, result, chunkStart);
+					chunkStart = i + 1;
+					pending = 0;
+				}
+			}
+			return result;
+		} finally {
+			JdbcUtils.closeStatement(pstmt);
+		}
+	}
+
+	private static void flush(PreparedStatement pstmt, int[] result, int offset) throws SQLException {
+		try {
+			int[] counts = pstmt.executeBatch();
+			System.arraycopy(counts, 0, result, offset, counts.length);
+		} catch (BatchUpdateException e) {
+			int[] counts = e.getUpdateCounts();
+			if (counts != null) {
+				System.arraycopy(counts, 0, result, offset, Math.min(counts.length, result.length - offset));
+			}
+			throw new BatchUpdateException(e.getMessage(), e.getSQLState(), e.getErrorCode(), result, e);
+		}
+	}
+}
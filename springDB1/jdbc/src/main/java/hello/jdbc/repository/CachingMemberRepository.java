@@ -0,0 +1,180 @@
+package hello.jdbc.repository;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import hello.jdbc.domain.Member;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/*
+ * findById 결과를 캐시하는 MemberRepository 데코레이터
+ * 
+ * Caffeine(W-TinyLFU 축출) 으로 최대 maximumSize 건, 기록 후 ttl 동안 보관한다.
+ * save/update/delete/withdraw/deposit 과 배치 변경은 해당 회원을 캐시에서 지운다.
+ * 
+ * 트랜잭션 안에서 바꾼 회원은
+ * - 그 트랜잭션 안의 findById 가 캐시를 거치지 않고 DB(커밋 전 내 변경)를 읽는다.
+ * - 커밋/롤백 직후 한 번 더 지운다. 커밋 전에 다른 스레드가 옛 값을 다시 채워 넣었을 수 있기 때문이다.
+ * 캐시에 넣은 Member 는 꺼낼 때 복사해서 호출한 쪽이 바꿔도 캐시가 오염되지 않는다.
+ */
+public class CachingMemberRepository implements MemberRepository, MeterBinder {
+
+	private final MemberRepository target;
+	private final Cache<String, Member> cache;
+
+	public CachingMemberRepository(MemberRepository target, long maximumSize, Duration ttl) {
+		this.target = target;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(ttl)
+				.recordStats()
+				.build();
+	}
+
+	@Override
+	public Member save(Member member) {
+		Member saved = target.save(member);
+		invalidate(member.getMemberId());
+		return saved;
+	}
+
+	@Override
+	public Member findById(String memberId) {
+		if (writtenInTransaction(memberId)) {
+			return target.findById(memberId);
+		}
+		Member member = cache.get(memberId, target::findById);
+		return copy(member);
+	}
+
+	@Override
+	public void update(String memberId, int money) {
+		target.update(memberId, money);
+		invalidate(memberId);
+	}
+
+	@Override
+	public void delete(String memberId) {
+		target.delete(memberId);
+		invalidate(memberId);
+	}
+
+	@Override
+	public boolean withdraw(String memberId, int money) {
+		boolean result = target.withdraw(memberId, money);
+		invalidate(memberId);
+		return result;
+	}
+
+	@Override
+	public boolean deposit(String memberId, int money) {
+		boolean result = target.deposit(memberId, money);
+		invalidate(memberId);
+		return result;
+	}
+
+	@Override
+	public boolean insertIfAbsent(Member member) {
+		boolean inserted = target.insertIfAbsent(member);
+		invalidate(member.getMemberId());
+		return inserted;
+	}
+
+	@Override
+	public void upsert(Member member) {
+		target.upsert(member);
+		invalidate(member.getMemberId());
+	}
+
+	@Override
+	public int[] saveAll(List<Member> members, int batchSize) {
+		try {
+			return target.saveAll(members, batchSize);
+		} finally {
+			members.forEach(member -> invalidate(member.getMemberId()));
+		}
+	}
+
+	@Override
+	public int[] updateAll(List<Member> members, int batchSize) {
+		try {
+			return target.updateAll(members, batchSize);
+		} finally {
+			members.forEach(member -> invalidate(member.getMemberId()));
+		}
+	}
+
+	//전체 조회는 캐시를 채우지 않는다
+	@Override
+	public Stream<Member> streamAll(int fetchSize) {
+		return target.streamAll(fetchSize);
+	}
+
+	@Override
+	public void scanAll(int fetchSize, Consumer<Member> action) {
+		target.scanAll(fetchSize, action);
+	}
+
+	public CacheStats getStats() {
+		return cache.stats();
+	}
+
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	//cache.gets / cache.puts / cache.evictions 등, 태그 cache=member
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, cache, "member");
+	}
+
+	private void invalidate(String memberId) {
+		cache.invalidate(memberId);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			writtenMemberIds().add(memberId);
+		}
+	}
+
+	private boolean writtenInTransaction(String memberId) {
+		@SuppressWarnings("unchecked")
+		Set<String> written = (Set<String>) TransactionSynchronizationManager.getResource(this);
+		return written != null && written.contains(memberId);
+	}
+
+	//현재 트랜잭션에서 바꾼 회원 id, 트랜잭션이 끝나면 다시 지우고 풀어 준다
+	@SuppressWarnings("unchecked")
+	private Set<String> writtenMemberIds() {
+		Set<String> written = (Set<String>) TransactionSynchronizationManager.getResource(this);
+		if (written == null) {
+			Set<String> ids = new HashSet<>();
+			TransactionSynchronizationManager.bindResource(this, ids);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(CachingMemberRepository.this);
+					cache.invalidateAll(ids);
+				}
+			});
+			written = ids;
+		}
+		return written;
+	}
+
+	private Member copy(Member member) {
+		return member == null ? null : new Member(member.getMemberId(), member.getMoney());
+	}
+}
@@ -0,0 +1,116 @@
+package hello.jdbc.repository;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.support.SQLErrorCodeSQLExceptionTranslator;
+import org.springframework.jdbc.support.SQLErrorCodes;
+import org.springframework.jdbc.support.SQLErrorCodesFactory;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
+
+import hello.jdbc.repository.ex.MyDbException;
+import hello.jdbc.repository.ex.MyDuplicateKeyException;
+import hello.jdbc.repository.ex.StacklessDuplicateKeyException;
+
+/*
+ * 예외 변환기
+ * 
+ * 오류 코드 표는 DB 제품(H2, MySQL...)별로 한 번만 만들어 모든 저장소가 공유한다.
+ * 제품은 첫 변환 때 한 번 확인하므로 DB 가 떠 있지 않아도 저장소를 만들 수 있다.
+ * 중복 키는 정렬된 int 배열 이진 탐색으로 먼저 확인하고, 스택 트레이스 없는 예외로 바꾼다.
+ * 나머지는 제품별로 공유하는 SQLErrorCodeSQLExceptionTranslator 에 맡긴다.
+ */
+public class MemberExceptionTranslator implements SQLExceptionTranslator {
+
+	private static final ConcurrentHashMap<String, ErrorCodeTable> BY_PRODUCT = new ConcurrentHashMap<>();
+	private static final SQLExceptionTranslator FALLBACK = new SQLStateSQLExceptionTranslator();
+	//표준 SQLState 무결성 제약 위반(유니크)
+	private static final String UNIQUE_VIOLATION_STATE = "23505";
+
+	private final DataSource dataSource;
+	private volatile ErrorCodeTable table;
+
+	public MemberExceptionTranslator(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	public boolean isDuplicateKey(SQLException e) {
+		ErrorCodeTable codes = table();
+		if (codes == null) {
+			return UNIQUE_VIOLATION_STATE.equals(e.getSQLState());
+		}
+		return codes.isDuplicateKey(e);
+	}
+
+	/*
+	 * V4_1 처럼 MyDbException 계층을 쓰는 저장소용
+	 */
+	public MyDbException translate(SQLException e) {
+		if (isDuplicateKey(e)) {
+			return MyDuplicateKeyException.withoutStackTrace(e);
+		}
+		return new MyDbException(e);
+	}
+
+	@Override
+	public DataAccessException translate(String task, String sql, SQLException ex) {
+		if (isDuplicateKey(ex)) {
+			return new StacklessDuplicateKeyException(task + "; SQL [" + sql + "]; " + ex.getMessage(), ex);
+		}
+		ErrorCodeTable codes = table();
+		DataAccessException translated = codes == null ? FALLBACK.translate(task, sql, ex)
+				: codes.translator.translate(task, sql, ex);
+		if (translated == null) {
+			translated = FALLBACK.translate(task, sql, ex);
+		}
+		return translated != null ? translated : new UncategorizedSQLException(task, sql, ex);
+	}
+
+	private ErrorCodeTable table() {
+		ErrorCodeTable codes = table;
+		if (codes == null) {
+			//SQLErrorCodesFactory 도 DataSource 별로 캐시하지만 커넥션을 못 얻으면 null
+			SQLErrorCodes errorCodes = SQLErrorCodesFactory.getInstance().resolveErrorCodes(dataSource);
+			if (errorCodes == null) {
+				return null;
+			}
+			String product = String.valueOf(errorCodes.getDatabaseProductName());
+			codes = BY_PRODUCT.computeIfAbsent(product, k -> new ErrorCodeTable(errorCodes));
+			table = codes;
+		}
+		return codes;
+	}
+
+	private static class ErrorCodeTable {
+		private final boolean useSqlState;
+		private final int[] duplicateKeyCodes;
+		private final String[] duplicateKeyStates;
+		private final SQLErrorCodeSQLExceptionTranslator translator;
+
+		ErrorCodeTable(SQLErrorCodes errorCodes) {
+			this.useSqlState = errorCodes.isUseSqlStateForTranslation();
+			String[] codes = errorCodes.getDuplicateKeyCodes();
+			this.duplicateKeyStates = codes.clone();
+			this.duplicateKeyCodes = useSqlState ? new int[0]
+					: Arrays.stream(codes)
+							.filter(code -> !code.isEmpty() && code.chars().allMatch(Character::isDigit))
+							.mapToInt(Integer::parseInt)
+							.sorted()
+							.toArray();
+			this.translator = new SQLErrorCodeSQLExceptionTranslator(errorCodes);
+		}
+
+		boolean isDuplicateKey(SQLException e) {
+			if (useSqlState) {
+				return Arrays.asList(duplicateKeyStates).contains(e.getSQLState());
+			}
+			return Arrays.binarySearch(duplicateKeyCodes, e.getErrorCode()) >= 0;
+		}
+	}
+}
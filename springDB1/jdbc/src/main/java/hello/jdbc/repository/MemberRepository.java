@@ -1,9 +1,16 @@
 package hello.jdbc.repository;
 
 
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
 import hello.jdbc.domain.Member;
 
 public interface MemberRepository {
+	int DEFAULT_BATCH_SIZE = 500;
+	int DEFAULT_FETCH_SIZE = 1000;
+
 	Member save(Member member);
 
 	Member findById(String memberId);
@@ -11,4 +18,60 @@ public interface MemberRepository {
 	void update(String memberId, int money);
 
 	void delete(String memberId);
+
+	/*
+	 * 상대 갱신(money = money - ?), 읽고 계산해서 덮어쓰지 않으므로 동시 이체에도 갱신이 사라지지 않는다.
+	 * withdraw 는 잔액이 money 이상일 때만 빼고, 뺐으면 true (잔액 부족이거나 회원이 없으면 false)
+	 * deposit 은 회원이 있으면 true
+	 */
+	boolean withdraw(String memberId, int money);
+
+	boolean deposit(String memberId, int money);
+
+	/*
+	 * 예외 없이 중복을 처리하는 저장
+	 * insertIfAbsent 는 같은 id 가 없을 때만 넣고, 넣었으면 true (이미 있으면 false, 중복 키 예외를 던지지 않는다)
+	 * upsert 는 없으면 넣고 있으면 money 를 바꾼다
+	 */
+	boolean insertIfAbsent(Member member);
+
+	void upsert(Member member);
+
+	/*
+	 * 배치 저장/수정
+	 * batchSize 건씩 addBatch 후 executeBatch 로 보낸다.
+	 * 반환값은 입력 순서대로 행별 결과(영향받은 행 수, 드라이버가 모르면 Statement.SUCCESS_NO_INFO)
+	 */
+	int[] saveAll(List<Member> members, int batchSize);
+
+	int[] updateAll(List<Member> members, int batchSize);
+
+	default int[] saveAll(List<Member> members) {
+		return saveAll(members, DEFAULT_BATCH_SIZE);
+	}
+
+	default int[] updateAll(List<Member> members) {
+		return updateAll(members, DEFAULT_BATCH_SIZE);
+	}
+
+	/*
+	 * 전체 회원 스트리밍 조회
+	 * 전체를 List 로 올리지 않고 fetchSize 건씩 커서로 읽는다. 메모리는 회원 수와 상관없이 일정하다.
+	 * 커넥션은 DataSourceUtils 로 얻으므로 진행 중인 트랜잭션에 참여한다.
+	 * (PostgreSQL 처럼 autocommit 이 꺼져 있어야 fetchSize 를 따르는 드라이버는 트랜잭션 안에서 불러야 한다)
+	 * 
+	 * 스트림은 커넥션을 잡고 있으므로 반드시 try-with-resources 로 닫아야 한다.
+	 */
+	Stream<Member> streamAll(int fetchSize);
+
+	default Stream<Member> streamAll() {
+		return streamAll(DEFAULT_FETCH_SIZE);
+	}
+
+	//콜백 방식, 끝나면 자원을 알아서 닫는다
+	default void scanAll(int fetchSize, Consumer<Member> action) {
+		try (Stream<Member> members = streamAll(fetchSize)) {
+			members.forEach(action);
+		}
+	}
 }
@@ -1,148 +1,74 @@
 package hello.jdbc.repository;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.NoSuchElementException;
 
-import hello.jdbc.connection.DBConnectionUtil;
 import hello.jdbc.domain.Member;
 import lombok.extern.slf4j.Slf4j;
 
 
 /*
  * JDBC - DriverManager 사용
+ * SQL 실행은 MemberStatements
  */
 
 @Slf4j
 public class MemberRepositoryV0 {
+	private final MemberStatements statements = MemberStatements.driverManager();
 
 	public Member save(Member member) throws SQLException {
 		String sql = "insert into membeR(member_id, money) values (?,?)";
 		
-		Connection con = null;
-		PreparedStatement pstmt = null;
-		
 		try {
-			con = getConnection();
-			pstmt = con.prepareStatement(sql);
-			pstmt.setString(1, member.getMemberId());
-			pstmt.setInt(2,member.getMoney());
-			pstmt.executeUpdate();
+			statements.update(sql, pstmt -> {
+				pstmt.setString(1, member.getMemberId());
+				pstmt.setInt(2, member.getMoney());
+			});
 			return member;
 		} catch (SQLException e) {
 			log.error("db error",e);
 			throw e;
-		} finally {
-			close(con, pstmt, null);
 		}
 	}
 	
 	public Member findById(String memberId) throws SQLException {
 		String sql = "select * from member where member_id = ?";
-	
-		Connection con = null;
-		PreparedStatement pstmt = null;
-		ResultSet rs = null;
 		
 		try {
-			con = getConnection();
-			pstmt = con.prepareStatement(sql);
-			pstmt.setString(1, memberId);
-			
-			rs = pstmt.executeQuery();
-			
-			if(rs.next()) {
-				Member member = new Member();
-				member.setMemberId(rs.getString("member_id"));
-				member.setMoney(rs.getInt("money"));
-				return member;
-			}else {
+			Member member = statements.queryMember(sql, pstmt -> pstmt.setString(1, memberId));
+			if (member == null) {
 				throw new NoSuchElementException("member not foun memberId = " + memberId);
-			}	
-			
+			}
+			return member;
 		} catch (SQLException e) {
 			log.error("db error",e);
 			throw e;
-		
-		} finally {
-			close(con, pstmt, rs);
 		}
 	}
 	
 	public void update(String memberId, int money) throws SQLException {
 		String sql = "update member set money=? where member_id=?";
 		
-		Connection con = null;
-		PreparedStatement pstmt = null;
-		ResultSet rs = null;
-		
 		try {
-			con = getConnection();
-			pstmt = con.prepareStatement(sql);
-			pstmt.setInt(1, money);
-			pstmt.setString(2, memberId);
-			
-			int resultSize = pstmt.executeUpdate();
+			int resultSize = statements.update(sql, pstmt -> {
+				pstmt.setInt(1, money);
+				pstmt.setString(2, memberId);
+			});
 			log.info("resultSize = {}",resultSize);
-			
 		} catch (SQLException e) {
 			log.error("db error",e);
 			throw e;
-		} finally {
-			close(con, pstmt, rs);
 		}
 	}
 	
 	public void delete(String memberId) throws SQLException {
 		String sql = "delete from member where member_id = ?";
 		
-		Connection con = null;
-		PreparedStatement pstmt = null;
-		ResultSet rs = null;
-		
 		try {
-			con = getConnection();
-			pstmt = con.prepareStatement(sql);
-			pstmt.setString(1, memberId);
-			pstmt.executeUpdate();
-			
+			statements.update(sql, pstmt -> pstmt.setString(1, memberId));
 		} catch (SQLException e) {
 			log.error("db error",e);
 			throw e;
-		} finally {
-			close(con, pstmt, rs);
 		}
 	}
-	
-	private void close(Connection con, Statement stmt, ResultSet rs) {
-		if(rs != null) {
-			try {
-				rs.close();
-			} catch (SQLException e) {
-				log.error("db error",e);
-			}
-		}
-		
-		if(stmt != null) {
-			try {
-				stmt.close();
-			} catch (SQLException e) {
-				log.error("db error",e);
-			}
-		}
-		if(con != null) {
-			try {
-				con.close();
-			} catch (SQLException e) {
-				log.error("db error",e);
-			}			
-		}
-	}
-	
-	private Connection getConnection() {
-		return DBConnectionUtil.getConnection();
-	}
 }
@@ -1,11 +1,13 @@
 package hello.jdbc.repository;
 
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.stream.Stream;
 
 import javax.sql.DataSource;
 
@@ -13,6 +15,7 @@ import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.jdbc.support.JdbcUtils;
 
 import hello.jdbc.domain.Member;
+import hello.jdbc.repository.ex.MyBatchUpdateException;
 import hello.jdbc.repository.ex.MyDbException;
 import lombok.extern.slf4j.Slf4j;
 
@@ -26,29 +29,27 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class MemberRepositoryV4_1 implements MemberRepository {
 	private final DataSource dataSource;
+	private final MemberStatements statements;
+	private final MemberExceptionTranslator exTranslator;
 
 	public MemberRepositoryV4_1(DataSource dataSource) {
 		this.dataSource = dataSource;
+		this.statements = MemberStatements.transactional(dataSource);
+		this.exTranslator = new MemberExceptionTranslator(dataSource);
 	}
 
 	@Override
 	public Member save(Member member) {
 		String sql = "insert into membeR(member_id, money) values (?,?)";
 
-		Connection con = null;
-		PreparedStatement pstmt = null;
-
 		try {
-			con = getConnection();
-			pstmt = con.prepareStatement(sql);
-			pstmt.setString(1, member.getMemberId());
-			pstmt.setInt(2, member.getMoney());
-			pstmt.executeUpdate();
+			statements.update(sql, pstmt -> {
+				pstmt.setString(1, member.getMemberId());
+				pstmt.setInt(2, member.getMoney());
+			});
 			return member;
 		} catch (SQLException e) {
-			throw new MyDbException(e);
-		} finally {
-			close(con, pstmt, null);
+			throw exTranslator.translate(e);
 		}
 	}
 
@@ -56,32 +57,15 @@ public class MemberRepositoryV4_1 implements MemberRepository {
 	public Member findById(String memberId) {
 		String sql = "select * from member where member_id = ?";
 
-		Connection con = null;
-		PreparedStatement pstmt = null;
-		ResultSet rs = null;
-
 		try {
-			con = getConnection();
-			pstmt = con.prepareStatement(sql);
-			pstmt.setString(1, memberId);
-
-			rs = pstmt.executeQuery();
-
-			if (rs.next()) {
-				Member member = new Member();
-				member.setMemberId(rs.getString("member_id"));
-				member.setMoney(rs.getInt("money"));
-				return member;
-			} else {
+			Member member = statements.queryMember(sql, pstmt -> pstmt.setString(1, memberId));
+			if (member == null) {
 				throw new NoSuchElementException("member not foun memberId = " + memberId);
 			}
-
+			return member;
 		} catch (SQLException e) {
 			log.error("db error", e);
 			throw new MyDbException(e);
-
-		} finally {
-			close(con, pstmt, rs);
 		}
 	}
 
@@ -89,24 +73,15 @@ public class MemberRepositoryV4_1 implements MemberRepository {
 	public void update(String memberId, int money) {
 		String sql = "update member set money=? where member_id=?";
 
-		Connection con = null;
-		PreparedStatement pstmt = null;
-		ResultSet rs = null;
-
 		try {
-			con = getConnection();
-			pstmt = con.prepareStatement(sql);
-			pstmt.setInt(1, money);
-			pstmt.setString(2, memberId);
-
-			int resultSize = pstmt.executeUpdate();
+			int resultSize = statements.update(sql, pstmt -> {
+				pstmt.setInt(1, money);
+				pstmt.setString(2, memberId);
+			});
 			log.info("resultSize = {}", resultSize);
-
 		} catch (SQLException e) {
 			log.error("db error", e);
 			throw new MyDbException(e);
-		} finally {
-			close(con, pstmt, rs);
 		}
 	}
 
@@ -114,21 +89,117 @@ public class MemberRepositoryV4_1 implements MemberRepository {
 	public void delete(String memberId) {
 		String sql = "delete from member where member_id = ?";
 
+		try {
+			statements.update(sql, pstmt -> pstmt.setString(1, memberId));
+		} catch (SQLException e) {
+			log.error("db error", e);
+			throw new MyDbException(e);
+		}
+	}
+
+	@Override
+	public boolean withdraw(String memberId, int money) {
+		String sql = "update member set money=money-? where member_id=? and money>=?";
+		return updateMoney(sql, memberId, money, true);
+	}
+
+	@Override
+	public boolean deposit(String memberId, int money) {
+		String sql = "update member set money=money+? where member_id=?";
+		return updateMoney(sql, memberId, money, false);
+	}
+
+	private boolean updateMoney(String sql, String memberId, int money, boolean checkBalance) {
+		try {
+			return statements.update(sql, pstmt -> {
+				pstmt.setInt(1, money);
+				pstmt.setString(2, memberId);
+				if (checkBalance) {
+					pstmt.setInt(3, money);
+				}
+			}) == 1;
+		} catch (SQLException e) {
+			throw new MyDbException(e);
+		}
+	}
+
+	@Override
+	public boolean insertIfAbsent(Member member) {
+		String sql = MergeSupport.INSERT_IF_ABSENT_SQL;
+
+		try {
+			return statements.update(sql, pstmt -> {
+				pstmt.setString(1, member.getMemberId());
+				pstmt.setInt(2, member.getMoney());
+			}) == 1;
+		} catch (SQLException e) {
+			//동시에 같은 id 를 넣는 경합에서는 DB 가 중복 키로 거절할 수 있다
+			if (exTranslator.isDuplicateKey(e)) {
+				return false;
+			}
+			throw exTranslator.translate(e);
+		}
+	}
+
+	@Override
+	public void upsert(Member member) {
+		String sql = MergeSupport.UPSERT_SQL;
+
+		try {
+			statements.update(sql, pstmt -> {
+				pstmt.setString(1, member.getMemberId());
+				pstmt.setInt(2, member.getMoney());
+			});
+		} catch (SQLException e) {
+			throw exTranslator.translate(e);
+		}
+	}
+
+	@Override
+	public Stream<Member> streamAll(int fetchSize) {
+		String sql = "select member_id, money from member";
+		return ScanSupport.stream(dataSource, sql, fetchSize, MyDbException::new);
+	}
+
+	@Override
+	public int[] saveAll(List<Member> members, int batchSize) {
+		String sql = "insert into member(member_id, money) values (?,?)";
+
 		Connection con = null;
-		PreparedStatement pstmt = null;
-		ResultSet rs = null;
 
 		try {
 			con = getConnection();
-			pstmt = con.prepareStatement(sql);
-			pstmt.setString(1, memberId);
-			pstmt.executeUpdate();
+			return BatchSupport.executeBatch(con, sql, members, batchSize, (pstmt, member) -> {
+				pstmt.setString(1, member.getMemberId());
+				pstmt.setInt(2, member.getMoney());
+			});
+		} catch (BatchUpdateException e) {
+			throw new MyBatchUpdateException(e.getUpdateCounts(), e);
+		} catch (SQLException e) {
+			throw new MyDbException(e);
+		} finally {
+			close(con, null, null);
+		}
+	}
 
+	@Override
+	public int[] updateAll(List<Member> members, int batchSize) {
+		String sql = "update member set money=? where member_id=?";
+
+		Connection con = null;
+
+		try {
+			con = getConnection();
+			return BatchSupport.executeBatch(con, sql, members, batchSize, (pstmt, member) -> {
+				pstmt.setInt(1, member.getMoney());
+				pstmt.setString(2, member.getMemberId());
+			});
+		} catch (BatchUpdateException e) {
+			throw new MyBatchUpdateException(e.getUpdateCounts(), e);
 		} catch (SQLException e) {
-			log.error("db error", e);
 			throw new MyDbException(e);
 		} finally {
-			close(con, pstmt, rs);
+			close(con, null, null);
 		}
 	}
 
@@ -1,9 +1,16 @@
 package hello.jdbc.repository;
 
 
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
 import javax.sql.DataSource;
 
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
 import org.springframework.jdbc.core.RowMapper;
 
 import hello.jdbc.domain.Member;
@@ -17,6 +24,7 @@ public class MemberRepositoryV5 implements MemberRepository {
 
 	public MemberRepositoryV5(DataSource dataSource) {
 		this.template = new JdbcTemplate(dataSource);
+		this.template.setExceptionTranslator(new MemberExceptionTranslator(dataSource));
 	}
 
 	@Override
@@ -44,6 +52,90 @@ public class MemberRepositoryV5 implements MemberRepository {
 		template.update(sql,memberId);
 	}
 	
+	@Override
+	public boolean withdraw(String memberId, int money) {
+		String sql = "update member set money=money-? where member_id=? and money>=?";
+		return template.update(sql, money, memberId, money) == 1;
+	}
+
+	@Override
+	public boolean deposit(String memberId, int money) {
+		String sql = "update member set money=money+? where member_id=?";
+		return template.update(sql, money, memberId) == 1;
+	}
+
+	@Override
+	public boolean insertIfAbsent(Member member) {
+		String sql = MergeSupport.INSERT_IF_ABSENT_SQL;
+		try {
+			return template.update(sql, member.getMemberId(), member.getMoney()) == 1;
+		} catch (DuplicateKeyException e) {
+			//동시에 같은 id 를 넣는 경합
+			return false;
+		}
+	}
+
+	@Override
+	public void upsert(Member member) {
+		String sql = MergeSupport.UPSERT_SQL;
+		template.update(sql, member.getMemberId(), member.getMoney());
+	}
+
+	@Override
+	public Stream<Member> streamAll(int fetchSize) {
+		return template.queryForStream(scanStatement(fetchSize), memberRowMapper());
+	}
+
+	@Override
+	public void scanAll(int fetchSize, Consumer<Member> action) {
+		RowMapper<Member> rowMapper = memberRowMapper();
+		template.query(scanStatement(fetchSize), rs -> {
+			action.accept(rowMapper.mapRow(rs, rs.getRow()));
+		});
+	}
+
+	private PreparedStatementCreator scanStatement(int fetchSize) {
+		if (fetchSize <= 0) {
+			throw new IllegalArgumentException("fetchSize must be positive: " + fetchSize);
+		}
+		return con -> {
+			PreparedStatement ps = con.prepareStatement("select member_id, money from member");
+			ps.setFetchSize(fetchSize);
+			return ps;
+		};
+	}
+
+	@Override
+	public int[] saveAll(List<Member> members, int batchSize) {
+		String sql = "insert into member(member_id, money) values (?,?)";
+		int[][] counts = template.batchUpdate(sql, members, batchSize, (ps, member) -> {
+			ps.setString(1, member.getMemberId());
+			ps.setInt(2, member.getMoney());
+		});
+		return flatten(counts, members.size());
+	}
+
+	@Override
+	public int[] updateAll(List<Member> members, int batchSize) {
+		String sql = "update member set money=? where member_id=?";
+		int[][] counts = template.batchUpdate(sql, members, batchSize, (ps, member) -> {
+			ps.setInt(1, member.getMoney());
+			ps.setString(2, member.getMemberId());
+		});
+		return flatten(counts, members.size());
+	}
+
+	//batchUpdate 는 배치 단위 int[][] 를 돌려주므로 입력 순서대로 펼친다
+	private int[] flatten(int[][] counts, int size) {
+		int[] result = new int[size];
+		int offset = 0;
+		for (int[] chunk : counts) {
+			System.arraycopy(chunk, 0, result, offset, chunk.length);
+			offset += chunk.length;
+		}
+		return result;
+	}
+	
 	private RowMapper<Member> memberRowMapper(){
 		return (rs, rowNum) -> {
 			Member member = new Member();
@@ -0,0 +1,219 @@
+package hello.jdbc.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import hello.jdbc.connection.DBConnectionUtil;
+import hello.jdbc.domain.Member;
+
+/*
+ * V0~V4 저장소 공통 SQL 실행
+ * 커넥션 얻기/반납, PreparedStatement 준비/닫기 try/finally 를 한곳에 모았다.
+ * 예외는 SQLException 그대로 던지므로 저장소마다 원래 하던 방식(그대로 던지기, MyDbException, 변환기)으로 바꾼다.
+ * 
+ * - PreparedStatement 캐시: 트랜잭션에 묶인 커넥션(transactional())이면 같은 SQL 의 PreparedStatement 를
+ *   트랜잭션이 끝날 때까지 재사용하고, 끝나면 닫는다. 그 외 커넥션은 쓰고 바로 닫는다.
+ * - 컬럼 위치: select 결과의 member_id, money 위치를 SQL 마다 처음 한 번 찾아 두고 이후엔 인덱스로 읽는다.
+ */
+class MemberStatements {
+
+	interface ConnectionSource {
+		Connection getConnection() throws SQLException;
+
+		void releaseConnection(Connection con);
+
+		//트랜잭션이 끝날 때까지 같은 커넥션이 유지되는지
+		default boolean isTransactional(Connection con) {
+			return false;
+		}
+	}
+
+	interface Binder {
+		void bind(PreparedStatement pstmt) throws SQLException;
+	}
+
+	private final ConnectionSource connections;
+	private final ConcurrentHashMap<String, int[]> memberColumns = new ConcurrentHashMap<>();
+
+	MemberStatements(ConnectionSource connections) {
+		this.connections = connections;
+	}
+
+	//V0: DriverManager
+	static MemberStatements driverManager() {
+		return new MemberStatements(new ConnectionSource() {
+			@Override
+			public Connection getConnection() {
+				return DBConnectionUtil.getConnection();
+			}
+
+			@Override
+			public void releaseConnection(Connection con) {
+				JdbcUtils.closeConnection(con);
+			}
+		});
+	}
+
+	//V1, V2: DataSource 에서 얻고 닫는다
+	static MemberStatements dataSource(DataSource dataSource) {
+		return new MemberStatements(new ConnectionSource() {
+			@Override
+			public Connection getConnection() throws SQLException {
+				return dataSource.getConnection();
+			}
+
+			@Override
+			public void releaseConnection(Connection con) {
+				JdbcUtils.closeConnection(con);
+			}
+		});
+	}
+
+	//V3, V4: 트랜잭션 동기화(DataSourceUtils)
+	static MemberStatements transactional(DataSource dataSource) {
+		return new MemberStatements(new ConnectionSource() {
+			@Override
+			public Connection getConnection() {
+				return DataSourceUtils.getConnection(dataSource);
+			}
+
+			@Override
+			public void releaseConnection(Connection con) {
+				DataSourceUtils.releaseConnection(con, dataSource);
+			}
+
+			@Override
+			public boolean isTransactional(Connection con) {
+				return DataSourceUtils.isConnectionTransactional(con, dataSource);
+			}
+		});
+	}
+
+	int update(String sql, Binder binder) throws SQLException {
+		Connection con = connections.getConnection();
+		try {
+			return update(con, sql, binder);
+		} finally {
+			connections.releaseConnection(con);
+		}
+	}
+
+	//커넥션은 호출한 쪽이 관리
+	int update(Connection con, String sql, Binder binder) throws SQLException {
+		PreparedStatement pstmt = prepare(con, sql);
+		try {
+			binder.bind(pstmt);
+			return pstmt.executeUpdate();
+		} finally {
+			release(con, pstmt);
+		}
+	}
+
+	//없으면 null
+	Member queryMember(String sql, Binder binder) throws SQLException {
+		Connection con = connections.getConnection();
+		try {
+			return queryMember(con, sql, binder);
+		} finally {
+			connections.releaseConnection(con);
+		}
+	}
+
+	Member queryMember(Connection con, String sql, Binder binder) throws SQLException {
+		PreparedStatement pstmt = prepare(con, sql);
+		ResultSet rs = null;
+		try {
+			binder.bind(pstmt);
+			rs = pstmt.executeQuery();
+			if (!rs.next()) {
+				return null;
+			}
+			int[] columns = memberColumns.get(sql);
+			if (columns == null) {
+				columns = new int[] { rs.findColumn("member_id"), rs.findColumn("money") };
+				memberColumns.put(sql, columns);
+			}
+			Member member = new Member();
+			member.setMemberId(rs.getString(columns[0]));
+			member.setMoney(rs.getInt(columns[1]));
+			return member;
+		} finally {
+			JdbcUtils.closeResultSet(rs);
+			release(con, pstmt);
+		}
+	}
+
+	private PreparedStatement prepare(Connection con, String sql) throws SQLException {
+		StatementCache cache = cacheFor(con);
+		if (cache == null) {
+			return con.prepareStatement(sql);
+		}
+		PreparedStatement pstmt = cache.statements.get(sql);
+		if (pstmt == null) {
+			pstmt = con.prepareStatement(sql);
+			cache.statements.put(sql, pstmt);
+		}
+		return pstmt;
+	}
+
+	private void release(Connection con, PreparedStatement pstmt) throws SQLException {
+		StatementCache cache = currentCache();
+		if (cache != null && cache.con == con) {
+			pstmt.clearParameters();
+			return;
+		}
+		JdbcUtils.closeStatement(pstmt);
+	}
+
+	private StatementCache currentCache() {
+		return (StatementCache) TransactionSynchronizationManager.getResource(this);
+	}
+
+	//트랜잭션에 묶인 커넥션일 때만, 트랜잭션 안에서 처음이면 만들고 끝날 때 닫도록 등록
+	private StatementCache cacheFor(Connection con) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive() || !connections.isTransactional(con)) {
+			return null;
+		}
+		StatementCache cache = currentCache();
+		if (cache != null) {
+			return cache.con == con ? cache : null;
+		}
+		StatementCache created = new StatementCache(con);
+		TransactionSynchronizationManager.bindResource(this, created);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			//커넥션이 반납되기 전에 닫는다
+			@Override
+			public int getOrder() {
+				return DataSourceUtils.CONNECTION_SYNCHRONIZATION_ORDER - 1;
+			}
+
+			@Override
+			public void afterCompletion(int status) {
+				TransactionSynchronizationManager.unbindResourceIfPossible(MemberStatements.this);
+				created.statements.values().forEach(JdbcUtils::closeStatement);
+			}
+		});
+		return created;
+	}
+
+	private static class StatementCache {
+		private final Connection con;
+		private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+		StatementCache(Connection con) {
+			this.con = con;
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package hello.jdbc.repository;
+
+/*
+ * insertIfAbsent / upsert 공통 SQL
+ * 파라미터는 (member_id, money) 순서, 같은 id 가 있으면 insertIfAbsent 는 0 행, upsert 는 money 를 바꾼다.
+ */
+abstract class MergeSupport {
+
+	private static final String MERGE_SOURCE = "merge into member m "
+			+ "using (select cast(? as varchar) as member_id, cast(? as integer) as money) s "
+			+ "on m.member_id = s.member_id ";
+
+	private static final String INSERT_WHEN_NOT_MATCHED = "when not matched then insert (member_id, money) values (s.member_id, s.money)";
+
+	static final String INSERT_IF_ABSENT_SQL = MERGE_SOURCE + INSERT_WHEN_NOT_MATCHED;
+
+	static final String UPSERT_SQL = MERGE_SOURCE
+			+ "when matched then update set money = s.money "
+			+ INSERT_WHEN_NOT_MATCHED;
+}
@@ -0,0 +1,77 @@
+package hello.jdbc.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import hello.jdbc.domain.Member;
+
+/*
+ * streamAll 공통 처리
+ * fetchSize 만큼씩 드라이버가 가져오는 커서를 한 행씩 Member 로 넘긴다.
+ * 커넥션은 DataSourceUtils 로 얻어 진행 중인 트랜잭션에 참여하고, 스트림을 닫을 때 반납한다.
+ */
+abstract class ScanSupport {
+
+	static Stream<Member> stream(DataSource dataSource, String sql, int fetchSize,
+			Function<SQLException, RuntimeException> exTranslator) {
+		if (fetchSize <= 0) {
+			throw new IllegalArgumentException("fetchSize must be positive: " + fetchSize);
+		}
+		Connection con = DataSourceUtils.getConnection(dataSource);
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try {
+			pstmt = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			pstmt.setFetchSize(fetchSize);
+			rs = pstmt.executeQuery();
+		} catch (SQLException e) {
+			close(dataSource, con, pstmt, rs);
+			throw exTranslator.apply(e);
+		}
+
+		ResultSet cursor = rs;
+		PreparedStatement statement = pstmt;
+		Spliterator<Member> spliterator = new Spliterators.AbstractSpliterator<Member>(Long.MAX_VALUE,
+				Spliterator.ORDERED | Spliterator.NONNULL) {
+			@Override
+			public boolean tryAdvance(Consumer<? super Member> action) {
+				try {
+					if (!cursor.next()) {
+						return false;
+					}
+					action.accept(mapRow(cursor));
+					return true;
+				} catch (SQLException e) {
+					throw exTranslator.apply(e);
+				}
+			}
+		};
+		return StreamSupport.stream(spliterator, false).onClose(() -> close(dataSource, con, statement, cursor));
+	}
+
+	static Member mapRow(ResultSet rs) throws SQLException {
+		Member member = new Member();
+		member.setMemberId(rs.getString("member_id"));
+		member.setMoney(rs.getInt("money"));
+		return member;
+	}
+
+	private static void close(DataSource dataSource, Connection con, PreparedStatement pstmt, ResultSet rs) {
+		JdbcUtils.closeResultSet(rs);
+		JdbcUtils.closeStatement(pstmt);
+		DataSourceUtils.releaseConnection(con, dataSource);
+	}
+}
@@ -0,0 +1,20 @@
+package hello.jdbc.repository.ex;
+
+/*
+ * 배치 중 일부 행이 실패한 경우
+ * updateCounts 는 입력 순서대로 행별 결과, 실패한 행은 Statement.EXECUTE_FAILED
+ * 실패한 배치 이후의 행은 실행되지 않았으므로 0
+ */
+public class MyBatchUpdateException extends MyDbException {
+
+	private final int[] updateCounts;
+
+	public MyBatchUpdateException(int[] updateCounts, Throwable cause) {
+		super(cause);
+		this.updateCounts = updateCounts;
+	}
+
+	public int[] getUpdateCounts() {
+		return updateCounts;
+	}
+}
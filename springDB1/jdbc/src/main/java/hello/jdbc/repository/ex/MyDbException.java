@@ -15,4 +15,9 @@ public class MyDbException extends RuntimeException {
 	public MyDbException(Throwable cause) {
 		super(cause);
 	}
+
+	//writableStackTrace 가 false 면 스택을 채우지 않는다(예상된 예외용)
+	protected MyDbException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+		super(message, cause, enableSuppression, writableStackTrace);
+	}
 }
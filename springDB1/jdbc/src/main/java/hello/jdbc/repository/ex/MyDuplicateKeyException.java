@@ -1,7 +1,15 @@
 package hello.jdbc.repository.ex;
 
 public class MyDuplicateKeyException extends MyDbException {
-	
+
+	/*
+	 * 아이디 할당처럼 자주 일어나고 예상된 중복 키용, 하나를 미리 만들어 두고 던진다
+	 * 스택 트레이스와 suppressed 를 모두 끄고 원인도 없으므로 만든 뒤 바뀌는 상태가 없어
+	 * 여러 스레드가 같은 인스턴스를 던져도 안전하다. 원인이 필요하면 withoutStackTrace 를 쓴다.
+	 */
+	public static final MyDuplicateKeyException PREALLOCATED = new MyDuplicateKeyException("duplicate key", null,
+			false, false);
+
 	public MyDuplicateKeyException() {
 	}
 
@@ -16,4 +24,14 @@ public class MyDuplicateKeyException extends MyDbException {
 	public MyDuplicateKeyException(Throwable cause) {
 		super(cause);
 	}
+
+	protected MyDuplicateKeyException(String message, Throwable cause, boolean enableSuppression,
+			boolean writableStackTrace) {
+		super(message, cause, enableSuppression, writableStackTrace);
+	}
+
+	//원인은 남기고 이 예외의 스택 트레이스만 생략
+	public static MyDuplicateKeyException withoutStackTrace(Throwable cause) {
+		return new MyDuplicateKeyException(cause == null ? null : cause.toString(), cause, false, false);
+	}
 }
@@ -0,0 +1,19 @@
+package hello.jdbc.repository.ex;
+
+import org.springframework.dao.DuplicateKeyException;
+
+/*
+ * 스택 트레이스를 채우지 않는 스프링 DuplicateKeyException
+ * catch (DuplicateKeyException e) 로 잡는 코드는 그대로 동작한다.
+ */
+public class StacklessDuplicateKeyException extends DuplicateKeyException {
+
+	public StacklessDuplicateKeyException(String msg, Throwable cause) {
+		super(msg, cause);
+	}
+
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		return this;
+	}
+}
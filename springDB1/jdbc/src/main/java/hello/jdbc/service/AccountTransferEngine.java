@@ -0,0 +1,86 @@
+package hello.jdbc.service;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.dao.ConcurrencyFailureException;
+
+import hello.jdbc.repository.ex.MyDbException;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * MemberServiceV4 이체를 교착(deadlock), 락 대기 시간 초과, 직렬화 실패 시 자동으로 다시 시도한다.
+ * 
+ * 실패한 트랜잭션은 이미 롤백됐으므로 프록시(@Transactional) 바깥에서 새 트랜잭션으로 다시 부른다.
+ * 스프링 예외 변환기는 이런 오류를 ConcurrencyFailureException 하위 예외로 바꾼다(MemberRepositoryV4_2, MemberRepositoryV5).
+ * MemberRepositoryV4_1 은 SQLException 을 MyDbException 으로 감싸기만 하므로 원인이 일시적 오류
+ * (SQLTransientException: 교착, 락 대기 시간 초과 등)이거나 SQLState 가 40 으로 시작하면(롤백됨) 다시 시도한다.
+ * 재시도 사이에는 무작위 백오프를 두어 같은 계좌를 노리는 이체들이 다시 부딪히지 않게 한다.
+ */
+@Slf4j
+public class AccountTransferEngine {
+
+	public static final int DEFAULT_MAX_ATTEMPTS = 10;
+
+	private final MemberServiceV4 memberService;
+	private final int maxAttempts;
+	private final LongAdder retryCount = new LongAdder();
+
+	public AccountTransferEngine(MemberServiceV4 memberService) {
+		this(memberService, DEFAULT_MAX_ATTEMPTS);
+	}
+
+	public AccountTransferEngine(MemberServiceV4 memberService, int maxAttempts) {
+		if (maxAttempts < 1) {
+			throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+		}
+		this.memberService = memberService;
+		this.maxAttempts = maxAttempts;
+	}
+
+	public void transfer(String fromId, String toId, int money) {
+		//트랜잭션을 열기 전에 거른다
+		TransferSteps.validate(fromId, toId, money);
+		for (int attempt = 1;; attempt++) {
+			try {
+				memberService.accountTransfer(fromId, toId, money);
+				return;
+			} catch (ConcurrencyFailureException | MyDbException e) {
+				if (!isRetryable(e) || attempt >= maxAttempts) {
+					throw e;
+				}
+				retryCount.increment();
+				log.debug("transfer retry attempt={} from={} to={} cause={}", attempt, fromId, toId, e.getMessage());
+				backoff(attempt);
+			}
+		}
+	}
+
+	private static boolean isRetryable(RuntimeException e) {
+		if (e instanceof ConcurrencyFailureException) {
+			return true;
+		}
+		if (!(e.getCause() instanceof SQLException)) {
+			return false;
+		}
+		SQLException cause = (SQLException) e.getCause();
+		return cause instanceof SQLTransientException
+				|| (cause.getSQLState() != null && cause.getSQLState().startsWith("40"));
+	}
+
+	public long getRetryCount() {
+		return retryCount.sum();
+	}
+
+	private void backoff(int attempt) {
+		long maxMillis = 1L << Math.min(attempt, 6);
+		try {
+			Thread.sleep(ThreadLocalRandom.current().nextLong(maxMillis + 1));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while retrying transfer", e);
+		}
+	}
+}
@@ -0,0 +1,8 @@
+package hello.jdbc.service;
+
+public class InsufficientBalanceException extends RuntimeException {
+
+	public InsufficientBalanceException(String message) {
+		super(message);
+	}
+}
@@ -14,6 +14,7 @@ import lombok.extern.slf4j.Slf4j;
  * SQLException 제거
  * 
  * MemberRepository 인터페이스에 의존
+ * 재시도는 트랜잭션 밖에서 AccountTransferEngine 이 한다
  */
 @Slf4j
 public class MemberServiceV4 {
@@ -31,17 +32,12 @@ public class MemberServiceV4 {
 	}
 
 	private void bizLogic(String fromId, String toId, int money)  {
-		// 비즈니스 로직 수행
-		Member fromMember = memberRepository.findById(fromId);
-		Member toMember = memberRepository.findById(toId);
-
-		this.memberRepository.update(fromId, fromMember.getMoney() - money);
-		validation(toMember);
-		this.memberRepository.update(toId, toMember.getMoney() + money);
+		// 비즈니스 로직 수행, 검증은 한쪽 계좌를 갱신한 뒤에 해서 예외 시 롤백을 확인한다
+		TransferSteps.apply(memberRepository, fromId, toId, money, () -> validation(toId));
 	}
 
-	private void validation(Member member) {
-		if (member.getMemberId().equals("ex")) {
+	private void validation(String memberId) {
+		if (memberId.equals("ex")) {
 			throw new IllegalStateException("이체중 예외 발생");
 		}
 	}
@@ -0,0 +1,203 @@
+package hello.jdbc.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import hello.jdbc.repository.MemberRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * 이체 그룹 커밋
+ * 
+ * submit() 은 이체를 큐에 넣고 바로 CompletableFuture 를 돌려준다.
+ * 작업 스레드 하나가 큐에서 최대 maxBatchSize 건, 첫 건이 들어온 뒤 최대 maxWait 동안 모아 한 트랜잭션으로 커밋한다.
+ * 커밋 한 번의 비용을 여러 이체가 나눠 내므로 건마다 커밋하는 MemberServiceV4 보다 처리량이 높다.
+ * 
+ * 각 이체는 세이브포인트(PROPAGATION_NESTED) 안에서 실행해 거절된 이체(잔액 부족, 회원 없음, 잘못된 요청)만 되돌리고
+ * 나머지는 같이 커밋한다. 세이브포인트가 필요하므로 DataSourceTransactionManager 와 함께 쓴다.
+ * 교착/락 대기 시간 초과 같은 DB 오류는 세이브포인트가 아니라 트랜잭션 전체를 되돌리므로(InnoDB 등) 배치 전체를 롤백한다.
+ * ConcurrencyFailureException 이면 배치를 처음부터 MAX_ATTEMPTS 번까지 다시 실행하고, 그 밖의 오류면 배치의 모든 future 가 실패한다.
+ * future 는 커밋이 끝난 뒤에 완료되고, 커밋 자체가 실패하면 그 배치의 모든 future 가 실패한다.
+ */
+@Slf4j
+public class TransferBatcher implements AutoCloseable {
+
+	private static final long IDLE_POLL_MILLIS = 100;
+	private static final int MAX_ATTEMPTS = 3;
+
+	private final MemberRepository memberRepository;
+	private final TransactionTemplate batchTx;
+	private final TransactionTemplate transferTx;
+	private final BlockingQueue<Transfer> queue;
+	private final int maxBatchSize;
+	private final long maxWaitNanos;
+	private final Thread worker;
+	private final LongAdder batchCount = new LongAdder();
+
+	private volatile boolean closed;
+
+	public TransferBatcher(PlatformTransactionManager transactionManager, MemberRepository memberRepository,
+			int maxBatchSize, Duration maxWait, int queueCapacity) {
+		if (maxBatchSize < 1 || queueCapacity < 1 || maxWait.isNegative()) {
+			throw new IllegalArgumentException("maxBatchSize and queueCapacity must be positive, maxWait must not be negative");
+		}
+		this.memberRepository = memberRepository;
+		this.batchTx = new TransactionTemplate(transactionManager);
+		this.transferTx = new TransactionTemplate(transactionManager);
+		this.transferTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.maxBatchSize = maxBatchSize;
+		this.maxWaitNanos = maxWait.toNanos();
+		this.worker = new Thread(this::run, "transfer-batcher");
+		this.worker.setDaemon(true);
+		this.worker.start();
+	}
+
+	/*
+	 * 큐가 가득 찼거나 닫힌 뒤면 RejectedExecutionException 으로 실패한 future 를 돌려준다.
+	 */
+	public CompletableFuture<Void> submit(String fromId, String toId, int money) {
+		Transfer transfer = new Transfer(fromId, toId, money);
+		try {
+			TransferSteps.validate(fromId, toId, money);
+		} catch (IllegalArgumentException e) {
+			transfer.result.completeExceptionally(e);
+			return transfer.result;
+		}
+		if (closed || !queue.offer(transfer)) {
+			transfer.result.completeExceptionally(new RejectedExecutionException(
+					closed ? "transfer batcher closed" : "transfer queue full"));
+		} else if (closed && queue.remove(transfer)) {
+			//넣는 사이에 작업 스레드가 멈췄다
+			transfer.result.completeExceptionally(new RejectedExecutionException("transfer batcher closed"));
+		}
+		return transfer.result;
+	}
+
+	public long getBatchCount() {
+		return batchCount.sum();
+	}
+
+	private void run() {
+		List<Transfer> batch = new ArrayList<>(maxBatchSize);
+		try {
+			while (!closed || !queue.isEmpty()) {
+				Transfer first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				long deadline = System.nanoTime() + maxWaitNanos;
+				while (batch.size() < maxBatchSize) {
+					long remaining = deadline - System.nanoTime();
+					Transfer next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+				commit(batch);
+				batch.clear();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		failAll(batch, new IllegalStateException("transfer batcher stopped"));
+		List<Transfer> rest = new ArrayList<>();
+		queue.drainTo(rest);
+		failAll(rest, new IllegalStateException("transfer batcher stopped"));
+	}
+
+	private void commit(List<Transfer> batch) {
+		for (int attempt = 1;; attempt++) {
+			try {
+				batchTx.executeWithoutResult(status -> {
+					for (Transfer transfer : batch) {
+						transfer.error = null;
+						try {
+							transferTx.executeWithoutResult(
+									s -> TransferSteps.apply(memberRepository, transfer.fromId, transfer.toId, transfer.money));
+						} catch (RuntimeException e) {
+							if (!isRejection(e)) {
+								throw e;
+							}
+							transfer.error = e;
+						}
+					}
+				});
+				break;
+			} catch (ConcurrencyFailureException e) {
+				if (attempt >= MAX_ATTEMPTS) {
+					log.warn("transfer batch failed after {} attempts size={}", attempt, batch.size(), e);
+					failAll(batch, e);
+					return;
+				}
+				log.info("transfer batch rolled back, retry attempt={} size={} cause={}", attempt, batch.size(), e.toString());
+			} catch (RuntimeException e) {
+				log.warn("transfer batch commit failed size={}", batch.size(), e);
+				failAll(batch, e);
+				return;
+			}
+		}
+		batchCount.increment();
+		for (Transfer transfer : batch) {
+			if (transfer.error != null) {
+				transfer.result.completeExceptionally(transfer.error);
+			} else {
+				transfer.result.complete(null);
+			}
+		}
+	}
+
+	//그 이체만 거절하면 되는 업무 오류, 나머지(DB 오류 등)는 배치 전체를 되돌린다
+	private static boolean isRejection(RuntimeException e) {
+		return e instanceof InsufficientBalanceException || e instanceof NoSuchElementException
+				|| e instanceof IllegalArgumentException;
+	}
+
+	private void failAll(List<Transfer> transfers, Throwable cause) {
+		for (Transfer transfer : transfers) {
+			transfer.result.completeExceptionally(cause);
+		}
+	}
+
+	/*
+	 * 이미 큐에 들어온 이체는 모두 처리한 뒤 멈춘다.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		try {
+			worker.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static class Transfer {
+		private final String fromId;
+		private final String toId;
+		private final int money;
+		private final CompletableFuture<Void> result = new CompletableFuture<>();
+		private RuntimeException error;
+
+		Transfer(String fromId, String toId, int money) {
+			this.fromId = fromId;
+			this.toId = toId;
+			this.money = money;
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package hello.jdbc.service;
+
+import java.util.NoSuchElementException;
+
+import hello.jdbc.repository.MemberRepository;
+
+/*
+ * 이체 한 건의 출금/입금, 호출하는 쪽의 트랜잭션 안에서 실행된다.
+ * 
+ * 상대 갱신(money = money - ?)으로 읽고 덮어쓰는 사이에 다른 이체가 끼어들어도 갱신이 사라지지 않는다.
+ * 두 계좌 행 잠금은 항상 member_id 순서로 잡아 반대 방향 이체끼리 교착되지 않게 한다.
+ */
+abstract class TransferSteps {
+
+	static void apply(MemberRepository memberRepository, String fromId, String toId, int money) {
+		apply(memberRepository, fromId, toId, money, () -> {
+		});
+	}
+
+	//betweenSteps 는 첫 번째 갱신 뒤, 두 번째 갱신 전에 실행된다
+	static void apply(MemberRepository memberRepository, String fromId, String toId, int money, Runnable betweenSteps) {
+		validate(fromId, toId, money);
+		if (fromId.compareTo(toId) < 0) {
+			withdraw(memberRepository, fromId, money);
+			betweenSteps.run();
+			deposit(memberRepository, toId, money);
+		} else {
+			deposit(memberRepository, toId, money);
+			betweenSteps.run();
+			withdraw(memberRepository, fromId, money);
+		}
+	}
+
+	/*
+	 * 음수 금액이면 잔액 검사가 있는 출금이 오히려 입금이 되고, 검사 없는 입금이 출금이 되어 잔액 검사를 우회한다.
+	 * SQL 을 보내기 전에 막는다.
+	 */
+	static void validate(String fromId, String toId, int money) {
+		if (money <= 0) {
+			throw new IllegalArgumentException("이체 금액은 0 보다 커야 함 money = " + money);
+		}
+		if (fromId.equals(toId)) {
+			throw new IllegalArgumentException("같은 계좌로 이체할 수 없음 memberId = " + fromId);
+		}
+	}
+
+	private static void withdraw(MemberRepository memberRepository, String fromId, int money) {
+		if (!memberRepository.withdraw(fromId, money)) {
+			throw new InsufficientBalanceException("잔액 부족 또는 회원 없음 memberId = " + fromId);
+		}
+	}
+
+	private static void deposit(MemberRepository memberRepository, String toId, int money) {
+		if (!memberRepository.deposit(toId, money)) {
+			throw new NoSuchElementException("member not found memberId = " + toId);
+		}
+	}
+}
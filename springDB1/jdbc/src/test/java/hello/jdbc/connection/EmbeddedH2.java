@@ -0,0 +1,30 @@
+package hello.jdbc.connection;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/*
+ * H2 서버 없이 돌리는 테스트용 메모리 DB
+ * member 테이블을 만들어 둔다.
+ */
+public abstract class EmbeddedH2 {
+
+	public static String url(String name) {
+		return "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1";
+	}
+
+	public static DriverManagerDataSource dataSource(String name) {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(url(name), "sa", "");
+		createMemberTable(dataSource);
+		return dataSource;
+	}
+
+	public static void createMemberTable(DataSource dataSource) {
+		JdbcTemplate template = new JdbcTemplate(dataSource);
+		template.execute("drop table member if exists");
+		template.execute("create table member (member_id varchar(10), money integer not null default 0, "
+				+ "primary key (member_id))");
+	}
+}
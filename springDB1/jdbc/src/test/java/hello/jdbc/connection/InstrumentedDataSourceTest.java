@@ -0,0 +1,138 @@
+package hello.jdbc.connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import hello.jdbc.domain.Member;
+import hello.jdbc.repository.MemberRepositoryV5;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class InstrumentedDataSourceTest {
+
+	HikariDataSource pool;
+	SimpleMeterRegistry registry;
+
+	@BeforeEach
+	void before() {
+		pool = new HikariDataSource();
+		pool.setJdbcUrl(EmbeddedH2.url("instrumented"));
+		pool.setUsername("sa");
+		pool.setPassword("");
+		pool.setMaximumPoolSize(4);
+		EmbeddedH2.createMemberTable(pool);
+		registry = new SimpleMeterRegistry();
+	}
+
+	@AfterEach
+	void after() {
+		pool.close();
+	}
+
+	@Test
+	void recordsAcquireHoldAndStatementTimes() {
+		try (InstrumentedDataSource dataSource = new InstrumentedDataSource(pool, registry, Duration.ZERO)) {
+			MemberRepositoryV5 repository = new MemberRepositoryV5(dataSource);
+			repository.save(new Member("memberA", 10000));
+			repository.findById("memberA");
+			repository.findById("memberA");
+
+			assertThat(registry.get("jdbc.connection.acquire").timer().count()).isEqualTo(3);
+			assertThat(registry.get("jdbc.connection.hold").timer().count()).isEqualTo(3);
+			assertThat(registry.get("jdbc.connection.open").gauge().value()).isZero();
+			Timer select = registry.get("jdbc.statement.execute")
+					.tag("sql", "select * from member where member_id = ?").timer();
+			assertThat(select.count()).isEqualTo(2);
+		}
+	}
+
+	@Test
+	void sqlTagsAreBounded() throws SQLException {
+		try (InstrumentedDataSource dataSource = new InstrumentedDataSource(pool, registry, Duration.ZERO, 2)) {
+			for (int i = 0; i < 5; i++) {
+				try (Connection con = dataSource.getConnection();
+						PreparedStatement pstmt = con.prepareStatement("select " + i)) {
+					pstmt.executeQuery().close();
+				}
+			}
+			assertThat(registry.find("jdbc.statement.execute").timers()).hasSize(3);
+			assertThat(registry.get("jdbc.statement.execute").tag("sql", InstrumentedDataSource.OTHER_SQL).timer()
+					.count()).isEqualTo(3);
+		}
+	}
+
+	@Test
+	void leakDetection() throws Exception {
+		try (InstrumentedDataSource dataSource = new InstrumentedDataSource(pool, registry, Duration.ofMillis(100))) {
+			Connection leaked = dataSource.getConnection();
+			long deadline = System.currentTimeMillis() + 5000;
+			while (registry.get("jdbc.connection.leak.suspected").counter().count() < 1
+					&& System.currentTimeMillis() < deadline) {
+				Thread.sleep(20);
+			}
+
+			assertThat(registry.get("jdbc.connection.leak.suspected").counter().count()).isEqualTo(1);
+			assertThat(dataSource.getLeakSuspects()).singleElement().satisfies(suspect -> {
+				assertThat(suspect.getHeldMillis()).isGreaterThanOrEqualTo(100);
+				assertThat(Arrays.stream(suspect.getAcquiredAt()).map(StackTraceElement::getMethodName))
+						.contains("leakDetection");
+			});
+
+			leaked.close();
+			assertThat(dataSource.getLeakSuspects()).isEmpty();
+		}
+	}
+
+	/*
+	 * 감싸지 않은 풀 대비 커넥션 획득 + 쿼리 + 반납 1회의 추가 비용
+	 * 측정만 하므로 기본 test 에서는 빠지고 ./gradlew benchmarkTest 로 따로 돌린다.
+	 */
+	@Test
+	@Tag("benchmark")
+	void overhead() throws SQLException {
+		int iterations = 50_000;
+		try (InstrumentedDataSource instrumented = new InstrumentedDataSource(pool, registry, Duration.ZERO);
+				InstrumentedDataSource withLeakDetection = new InstrumentedDataSource(pool, new SimpleMeterRegistry(),
+						Duration.ofSeconds(30))) {
+			//워밍업
+			run(pool, iterations);
+			run(instrumented, iterations);
+			run(withLeakDetection, iterations);
+
+			long raw = run(pool, iterations);
+			long plain = run(instrumented, iterations);
+			long leak = run(withLeakDetection, iterations);
+			log.info("raw={}ns/op instrumented={}ns/op instrumented+leakDetection={}ns/op", raw / iterations,
+					plain / iterations, leak / iterations);
+		}
+	}
+
+	private long run(DataSource dataSource, int iterations) throws SQLException {
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			try (Connection con = dataSource.getConnection();
+					PreparedStatement pstmt = con.prepareStatement("select 1");
+					ResultSet rs = pstmt.executeQuery()) {
+				rs.next();
+			}
+		}
+		return System.nanoTime() - start;
+	}
+}
@@ -0,0 +1,173 @@
+package hello.jdbc.connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import hello.jdbc.domain.Member;
+import hello.jdbc.repository.MemberRepositoryV5;
+
+/*
+ * 원본/복제본을 서로 다른 임베디드 H2 로 두고, 같은 회원의 잔액을 다르게 넣어 어디서 읽었는지 구분한다.
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+	static final int PRIMARY_MONEY = 10000;
+	static final int REPLICA_MONEY = 20000;
+
+	DataSource primary;
+	ToggleDataSource replica;
+	ReadWriteRoutingDataSource routing;
+
+	@BeforeEach
+	void before() {
+		primary = EmbeddedH2.dataSource("primary");
+		replica = new ToggleDataSource(EmbeddedH2.dataSource("replica"));
+		new MemberRepositoryV5(primary).save(new Member("memberA", PRIMARY_MONEY));
+		new MemberRepositoryV5(replica).save(new Member("memberA", REPLICA_MONEY));
+	}
+
+	@AfterEach
+	void after() {
+		routing.close();
+	}
+
+	@Test
+	void nonTransactionalReadGoesToReplica() {
+		routing = new ReadWriteRoutingDataSource(primary, List.of(replica), Duration.ZERO);
+		MemberRepositoryV5 repository = new MemberRepositoryV5(routing);
+
+		assertThat(repository.findById("memberA").getMoney()).isEqualTo(REPLICA_MONEY);
+
+		repository.update("memberA", 5000);
+		assertThat(new MemberRepositoryV5(primary).findById("memberA").getMoney()).isEqualTo(5000);
+		assertThat(new MemberRepositoryV5(replica).findById("memberA").getMoney()).isEqualTo(REPLICA_MONEY);
+	}
+
+	@Test
+	void readOnlyTransactionGoesToReplica() {
+		routing = new ReadWriteRoutingDataSource(primary, List.of(replica), Duration.ZERO);
+		MemberRepositoryV5 repository = new MemberRepositoryV5(routing);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+
+		TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+		Integer readOnlyMoney = readOnly.execute(status -> repository.findById("memberA").getMoney());
+
+		TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+		Integer readWriteMoney = readWrite.execute(status -> {
+			repository.deposit("memberA", 1000);
+			return repository.findById("memberA").getMoney();
+		});
+
+		assertThat(readOnlyMoney).isEqualTo(REPLICA_MONEY);
+		assertThat(readWriteMoney).isEqualTo(PRIMARY_MONEY + 1000);
+	}
+
+	@Test
+	void readYourWritesWithinStickyWindow() {
+		routing = new ReadWriteRoutingDataSource(primary, List.of(replica), Duration.ofMinutes(1));
+		MemberRepositoryV5 repository = new MemberRepositoryV5(routing);
+
+		assertThat(repository.findById("memberA").getMoney()).isEqualTo(REPLICA_MONEY);
+		repository.update("memberA", 5000);
+		assertThat(repository.findById("memberA").getMoney()).isEqualTo(5000);
+	}
+
+	@Test
+	void unhealthyReplicaFallsBackToPrimary() throws Exception {
+		routing = new ReadWriteRoutingDataSource(primary, List.of(replica), Duration.ZERO, Duration.ofMillis(50));
+		MemberRepositoryV5 repository = new MemberRepositoryV5(routing);
+
+		replica.down = true;
+		awaitHealthyReplicas(0);
+		assertThat(repository.findById("memberA").getMoney()).isEqualTo(PRIMARY_MONEY);
+
+		replica.down = false;
+		awaitHealthyReplicas(1);
+		assertThat(repository.findById("memberA").getMoney()).isEqualTo(REPLICA_MONEY);
+	}
+
+	@Test
+	void lockingReadGoesToPrimary() throws SQLException {
+		routing = new ReadWriteRoutingDataSource(primary, List.of(replica), Duration.ZERO);
+
+		try (Connection con = routing.getConnection();
+				PreparedStatement pstmt = con.prepareStatement(
+						"select money from member where member_id = ? for update")) {
+			pstmt.setString(1, "memberA");
+			try (ResultSet rs = pstmt.executeQuery()) {
+				assertThat(rs.next()).isTrue();
+				assertThat(rs.getInt("money")).isEqualTo(PRIMARY_MONEY);
+			}
+		}
+		assertThat(routing.getReplicaConnectionCount()).isZero();
+		assertThat(ReadWriteRoutingDataSource.isLockingRead("SELECT * FROM member FOR SHARE")).isTrue();
+		assertThat(ReadWriteRoutingDataSource.isLockingRead("select * from member lock in share mode")).isTrue();
+		assertThat(ReadWriteRoutingDataSource.isLockingRead("select * from member where name = 'format'")).isFalse();
+	}
+
+	@Test
+	void explicitCredentialsAreRoutedToo() {
+		routing = new ReadWriteRoutingDataSource(primary, List.of(replica), Duration.ZERO);
+		MemberRepositoryV5 repository = new MemberRepositoryV5(new DelegatingDataSource(routing) {
+			@Override
+			public Connection getConnection() throws SQLException {
+				return routing.getConnection("sa", "");
+			}
+		});
+
+		assertThat(repository.findById("memberA").getMoney()).isEqualTo(REPLICA_MONEY);
+		repository.update("memberA", 5000);
+		assertThat(new MemberRepositoryV5(primary).findById("memberA").getMoney()).isEqualTo(5000);
+	}
+
+	@Test
+	void transactionWithoutStatementsOpensNoConnection() {
+		routing = new ReadWriteRoutingDataSource(primary, List.of(replica), Duration.ZERO);
+		new TransactionTemplate(new DataSourceTransactionManager(routing)).executeWithoutResult(status -> {
+		});
+
+		assertThat(routing.getPrimaryConnectionCount()).isZero();
+		assertThat(routing.getReplicaConnectionCount()).isZero();
+	}
+
+	private void awaitHealthyReplicas(int expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (routing.getHealthyReplicaCount() != expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertThat(routing.getHealthyReplicaCount()).isEqualTo(expected);
+	}
+
+	//장애를 흉내 내는 복제본
+	static class ToggleDataSource extends DelegatingDataSource {
+		volatile boolean down;
+
+		ToggleDataSource(DataSource target) {
+			super(target);
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			if (down) {
+				throw new SQLException("replica down");
+			}
+			return super.getConnection();
+		}
+	}
+}
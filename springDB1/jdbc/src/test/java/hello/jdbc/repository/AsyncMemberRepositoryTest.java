@@ -0,0 +1,164 @@
+package hello.jdbc.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import hello.jdbc.connection.EmbeddedH2;
+import hello.jdbc.domain.Member;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class AsyncMemberRepositoryTest {
+
+	//원격 DB 왕복 시간 흉내
+	static final long ROUND_TRIP_MILLIS = 5;
+	static final int POOL_SIZE = 4;
+
+	LatencyDataSource dataSource;
+	MemberRepositoryV5 repository;
+
+	@BeforeEach
+	void before() {
+		dataSource = new LatencyDataSource(EmbeddedH2.dataSource("async"));
+		repository = new MemberRepositoryV5(dataSource);
+		List<Member> members = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			members.add(new Member("m" + i, 1000 * i));
+		}
+		repository.saveAll(members);
+	}
+
+	@Test
+	void findAllByIdKeepsOrderAndLimitsConcurrency() throws Exception {
+		try (AsyncMemberRepository async = new AsyncMemberRepository(repository, 2)) {
+			List<Member> members = async.findAllById(List.of("m3", "m1", "m2", "m0", "m4")).get();
+
+			assertThat(members).extracting(Member::getMemberId).containsExactly("m3", "m1", "m2", "m0", "m4");
+			assertThat(dataSource.maxConcurrent.get()).isLessThanOrEqualTo(2);
+		}
+	}
+
+	//스레드가 더 많은 실행기를 넘겨도 maxConcurrency 를 넘지 않는다
+	@Test
+	void suppliedExecutorLimitsConcurrency() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try (AsyncMemberRepository async = new AsyncMemberRepository(repository, 2, executor)) {
+			List<Member> members = async.findAllById(List.of("m3", "m1", "m2", "m0", "m4", "m5", "m6", "m7")).get();
+
+			assertThat(members).extracting(Member::getMemberId).containsExactly("m3", "m1", "m2", "m0", "m4", "m5", "m6", "m7");
+			assertThat(dataSource.maxConcurrent.get()).isLessThanOrEqualTo(2);
+			assertThat(async.getAvailablePermits()).isEqualTo(2);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void failurePropagates() {
+		try (AsyncMemberRepository async = new AsyncMemberRepository(repository, POOL_SIZE)) {
+			CompletableFuture<List<Member>> result = async.findAllById(List.of("m1", "none"));
+
+			assertThat(result).failsWithin(Duration.ofSeconds(5))
+					.withThrowableOfType(ExecutionException.class)
+					.withCauseInstanceOf(EmptyResultDataAccessException.class);
+		}
+	}
+
+	/*
+	 * 이체의 두 조회(2건)와 팬아웃 조회(10건) 지연 시간, 순차 vs 병렬
+	 * 한 번 잰 값이라 비교만 로그로 남긴다. 기본 test 에서는 빠지고 ./gradlew benchmarkTest 로 따로 돌린다.
+	 */
+	@Test
+	@Tag("benchmark")
+	void parallelLookupLatency() throws Exception {
+		try (AsyncMemberRepository async = new AsyncMemberRepository(repository, POOL_SIZE)) {
+			for (int lookups : new int[] { 2, 10 }) {
+				List<String> ids = new ArrayList<>();
+				for (int i = 0; i < lookups; i++) {
+					ids.add("m" + i);
+				}
+				//워밍업
+				sequential(ids);
+				async.findAllById(ids).get();
+
+				long start = System.nanoTime();
+				sequential(ids);
+				long sequentialMicros = (System.nanoTime() - start) / 1000;
+
+				start = System.nanoTime();
+				async.findAllById(ids).get();
+				long parallelMicros = (System.nanoTime() - start) / 1000;
+
+				log.info("{} lookups: sequential={}us parallel={}us (pool={})", lookups, sequentialMicros,
+						parallelMicros, POOL_SIZE);
+			}
+		}
+	}
+
+	private void sequential(List<String> ids) {
+		for (String id : ids) {
+			repository.findById(id);
+		}
+	}
+
+	static class LatencyDataSource extends DelegatingDataSource {
+		final AtomicInteger concurrent = new AtomicInteger();
+		final AtomicInteger maxConcurrent = new AtomicInteger();
+
+		LatencyDataSource(DataSource target) {
+			super(target);
+		}
+
+		//커넥션을 얻어서 닫을 때까지를 동시 사용으로 센다
+		@Override
+		public Connection getConnection() throws SQLException {
+			int now = concurrent.incrementAndGet();
+			maxConcurrent.accumulateAndGet(now, Math::max);
+			Connection target;
+			try {
+				Thread.sleep(ROUND_TRIP_MILLIS);
+				target = super.getConnection();
+			} catch (InterruptedException e) {
+				concurrent.decrementAndGet();
+				Thread.currentThread().interrupt();
+				throw new SQLException(e);
+			} catch (SQLException | RuntimeException e) {
+				concurrent.decrementAndGet();
+				throw e;
+			}
+			AtomicBoolean closed = new AtomicBoolean();
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+						if (method.getName().equals("close") && closed.compareAndSet(false, true)) {
+							concurrent.decrementAndGet();
+						}
+						try {
+							return method.invoke(target, args);
+						} catch (InvocationTargetException e) {
+							throw e.getTargetException();
+						}
+					});
+		}
+	}
+}
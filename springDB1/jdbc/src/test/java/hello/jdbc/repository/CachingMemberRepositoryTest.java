@@ -0,0 +1,136 @@
+package hello.jdbc.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import hello.jdbc.connection.EmbeddedH2;
+import hello.jdbc.connection.InstrumentedDataSource;
+import hello.jdbc.domain.Member;
+import io.micrometer.core.instrument.search.Search;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class CachingMemberRepositoryTest {
+
+	HikariDataSource pool;
+	SimpleMeterRegistry registry;
+	InstrumentedDataSource dataSource;
+
+	@BeforeEach
+	void before() {
+		pool = new HikariDataSource();
+		pool.setJdbcUrl(EmbeddedH2.url("caching"));
+		pool.setUsername("sa");
+		pool.setPassword("");
+		EmbeddedH2.createMemberTable(pool);
+		registry = new SimpleMeterRegistry();
+		dataSource = new InstrumentedDataSource(pool, registry, Duration.ZERO);
+	}
+
+	@AfterEach
+	void after() {
+		dataSource.close();
+		pool.close();
+	}
+
+	@Test
+	void invalidateOnWrite() {
+		CachingMemberRepository repository = new CachingMemberRepository(new MemberRepositoryV5(dataSource), 100,
+				Duration.ofMinutes(1));
+		repository.save(new Member("memberA", 10000));
+
+		assertThat(repository.findById("memberA").getMoney()).isEqualTo(10000);
+		assertThat(repository.findById("memberA").getMoney()).isEqualTo(10000);
+		assertThat(repository.getStats().hitCount()).isEqualTo(1);
+
+		repository.update("memberA", 5000);
+		assertThat(repository.findById("memberA").getMoney()).isEqualTo(5000);
+
+		repository.withdraw("memberA", 1000);
+		assertThat(repository.findById("memberA").getMoney()).isEqualTo(4000);
+
+		//꺼낸 객체를 바꿔도 캐시는 그대로
+		repository.findById("memberA").setMoney(0);
+		assertThat(repository.findById("memberA").getMoney()).isEqualTo(4000);
+	}
+
+	@Test
+	void transactionSeesOwnWrites() {
+		CachingMemberRepository repository = new CachingMemberRepository(new MemberRepositoryV5(dataSource), 100,
+				Duration.ofMinutes(1));
+		repository.save(new Member("memberA", 10000));
+		TransactionTemplate txTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+		txTemplate.executeWithoutResult(status -> {
+			assertThat(repository.findById("memberA").getMoney()).isEqualTo(10000);
+			repository.update("memberA", 5000);
+			assertThat(repository.findById("memberA").getMoney()).isEqualTo(5000);
+			assertThat(repository.findById("memberA").getMoney()).isEqualTo(5000);
+			status.setRollbackOnly();
+		});
+
+		assertThat(repository.findById("memberA").getMoney()).isEqualTo(10000);
+	}
+
+	/*
+	 * 읽기 95%, 쓰기 5% 부하에서 DB 로 나간 쿼리 수 비교
+	 * 오래 걸리므로 기본 test 에서는 빠지고 ./gradlew benchmarkTest 로 따로 돌린다.
+	 */
+	@Test
+	@Tag("benchmark")
+	void readHeavyLoad() {
+		int members = 1_000;
+		int operations = 100_000;
+		List<Member> initial = new ArrayList<>();
+		for (int i = 0; i < members; i++) {
+			initial.add(new Member("m" + i, 10000));
+		}
+		MemberRepositoryV5 direct = new MemberRepositoryV5(dataSource);
+		direct.saveAll(initial);
+		CachingMemberRepository cached = new CachingMemberRepository(direct, members / 2, Duration.ofMinutes(1));
+
+		long directQueries = run(direct, members, operations);
+		long cachedQueries = run(cached, members, operations);
+
+		log.info("hitRate={} evictions={}", cached.getStats().hitRate(), cached.getStats().evictionCount());
+		assertThat(cachedQueries).isLessThan(directQueries / 2);
+	}
+
+	private long run(MemberRepository repository, int members, int operations) {
+		long before = statementCount();
+		//상위 몇 % 회원에게 요청이 몰리는 분포
+		Random random = new Random(1);
+		long start = System.nanoTime();
+		for (int i = 0; i < operations; i++) {
+			String memberId = "m" + (int) (members * Math.pow(random.nextDouble(), 3));
+			if (random.nextInt(100) < 5) {
+				repository.update(memberId, random.nextInt(10000));
+			} else {
+				repository.findById(memberId);
+			}
+		}
+		long elapsedNanos = System.nanoTime() - start;
+		long queries = statementCount() - before;
+		log.info("{}: db statements={} -> {} ops/s", repository.getClass().getSimpleName(), queries,
+				operations * 1_000_000_000L / elapsedNanos);
+		return queries;
+	}
+
+	private long statementCount() {
+		return Search.in(registry).name("jdbc.statement.execute").timers().stream().mapToLong(t -> t.count()).sum();
+	}
+}
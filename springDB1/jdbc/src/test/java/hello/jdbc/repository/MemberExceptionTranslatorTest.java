@@ -0,0 +1,115 @@
+package hello.jdbc.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import hello.jdbc.connection.EmbeddedH2;
+import hello.jdbc.domain.Member;
+import hello.jdbc.repository.ex.MyDuplicateKeyException;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class MemberExceptionTranslatorTest {
+
+	DataSource dataSource;
+
+	@BeforeEach
+	void before() {
+		dataSource = EmbeddedH2.dataSource("translator");
+	}
+
+	@Test
+	void duplicateKeyWithoutStackTrace() {
+		MemberRepositoryV4_1 v4_1 = new MemberRepositoryV4_1(dataSource);
+		v4_1.save(new Member("memberA", 0));
+
+		assertThatThrownBy(() -> v4_1.save(new Member("memberA", 0)))
+				.isInstanceOfSatisfying(MyDuplicateKeyException.class, e -> {
+					assertThat(e.getStackTrace()).isEmpty();
+					assertThat(e.getCause()).isInstanceOf(SQLException.class);
+				});
+
+		for (MemberRepository repository : List.of(new MemberRepositoryV4_2(dataSource),
+				new MemberRepositoryV5(dataSource))) {
+			assertThatThrownBy(() -> repository.save(new Member("memberA", 0)))
+					.isInstanceOfSatisfying(DuplicateKeyException.class, e -> assertThat(e.getStackTrace()).isEmpty());
+		}
+	}
+
+	//공유 인스턴스는 addSuppressed, fillInStackTrace 뒤에도 그대로다
+	@Test
+	void preallocatedIsImmutable() {
+		MyDuplicateKeyException e = MyDuplicateKeyException.PREALLOCATED;
+		e.addSuppressed(new IllegalStateException());
+		e.fillInStackTrace();
+
+		assertThat(e.getSuppressed()).isEmpty();
+		assertThat(e.getStackTrace()).isEmpty();
+		assertThat(e.getCause()).isNull();
+	}
+
+	@Test
+	void insertIfAbsentAndUpsert() {
+		for (MemberRepository repository : List.of(new MemberRepositoryV4_1(dataSource),
+				new MemberRepositoryV4_2(dataSource), new MemberRepositoryV5(dataSource))) {
+			EmbeddedH2.createMemberTable(dataSource);
+
+			assertThat(repository.insertIfAbsent(new Member("memberA", 1000))).isTrue();
+			assertThat(repository.insertIfAbsent(new Member("memberA", 2000))).isFalse();
+			assertThat(repository.findById("memberA").getMoney()).isEqualTo(1000);
+
+			repository.upsert(new Member("memberA", 3000));
+			repository.upsert(new Member("memberB", 4000));
+			assertThat(repository.findById("memberA").getMoney()).isEqualTo(3000);
+			assertThat(repository.findById("memberB").getMoney()).isEqualTo(4000);
+		}
+	}
+
+	/*
+	 * 아이디 할당: 후보가 이미 있으면 다른 후보로 다시 시도
+	 * 예외로 중복을 알아내는 방식(ExTranslatorV1Test) vs insertIfAbsent
+	 */
+	@Test
+	void idAllocationRetry() {
+		int allocations = 5_000;
+		MemberRepositoryV4_1 repository = new MemberRepositoryV4_1(dataSource);
+		List<Member> taken = new ArrayList<>();
+		for (int i = 0; i < allocations; i++) {
+			taken.add(new Member("id" + i, 0));
+		}
+		repository.saveAll(taken);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < allocations; i++) {
+			try {
+				repository.save(new Member("id" + i, 0));
+			} catch (MyDuplicateKeyException e) {
+				repository.save(new Member("ex" + i, 0));
+			}
+		}
+		long exceptionNanos = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < allocations; i++) {
+			if (!repository.insertIfAbsent(new Member("id" + i, 0))) {
+				repository.insertIfAbsent(new Member("up" + i, 0));
+			}
+		}
+		long insertIfAbsentNanos = System.nanoTime() - start;
+
+		log.info("exception retry={}us/alloc insertIfAbsent={}us/alloc", exceptionNanos / allocations / 1000,
+				insertIfAbsentNanos / allocations / 1000);
+		assertThat(repository.findById("ex" + (allocations - 1))).isNotNull();
+		assertThat(repository.findById("up" + (allocations - 1))).isNotNull();
+	}
+}
@@ -0,0 +1,113 @@
+package hello.jdbc.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import hello.jdbc.connection.EmbeddedH2;
+import hello.jdbc.domain.Member;
+import hello.jdbc.repository.ex.MyBatchUpdateException;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class MemberRepositoryBatchTest {
+
+	DataSource dataSource;
+
+	@BeforeEach
+	void before() {
+		dataSource = EmbeddedH2.dataSource("batch");
+	}
+
+	@Test
+	void saveAllAndUpdateAll() {
+		for (MemberRepository repository : List.of(new MemberRepositoryV4_1(dataSource),
+				new MemberRepositoryV4_2(dataSource), new MemberRepositoryV5(dataSource))) {
+			EmbeddedH2.createMemberTable(dataSource);
+			List<Member> members = members(1000, 10000);
+
+			int[] saved = repository.saveAll(members, 128);
+			assertThat(saved).hasSize(1000).containsOnly(1);
+
+			List<Member> updated = members(1000, 20000);
+			updated.add(new Member("none", 0));
+			int[] counts = repository.updateAll(updated, 128);
+
+			assertThat(counts).hasSize(1001);
+			assertThat(counts[1000]).isEqualTo(0);
+			assertThat(repository.findById("m999").getMoney()).isEqualTo(20000);
+		}
+	}
+
+	@Test
+	void saveAllDuplicateKey() {
+		MemberRepositoryV4_1 repository = new MemberRepositoryV4_1(dataSource);
+		repository.save(new Member("m3", 0));
+
+		assertThatThrownBy(() -> repository.saveAll(members(10, 0), 4))
+				.isInstanceOfSatisfying(MyBatchUpdateException.class, e -> {
+					int[] counts = e.getUpdateCounts();
+					assertThat(counts).hasSize(10);
+					assertThat(counts[0]).isEqualTo(1);
+					assertThat(counts[3]).isEqualTo(Statement.EXECUTE_FAILED);
+					//실패한 배치 이후는 실행되지 않음
+					assertThat(counts[9]).isEqualTo(0);
+				});
+
+		assertThatThrownBy(() -> new MemberRepositoryV4_2(dataSource).saveAll(members(10, 0), 4))
+				.isInstanceOf(DataAccessException.class);
+	}
+
+	/*
+	 * 단건 save 반복 vs saveAll 처리량 비교 (임베디드 H2)
+	 * 양쪽 모두 같은 커넥션 풀을 써서 커넥션 생성 비용이 아니라 왕복/배치 차이만 본다.
+	 * 오래 걸리므로 기본 test 에서는 빠지고 ./gradlew benchmarkTest 로 따로 돌린다.
+	 */
+	@Test
+	@Tag("benchmark")
+	void throughput() {
+		int rows = 20000;
+		try (HikariDataSource pool = new HikariDataSource()) {
+			pool.setJdbcUrl(EmbeddedH2.url("batch"));
+			pool.setUsername("sa");
+			pool.setPassword("");
+			MemberRepositoryV4_1 repository = new MemberRepositoryV4_1(pool);
+
+			List<Member> single = members(rows, 0);
+			long start = System.nanoTime();
+			for (Member member : single) {
+				repository.save(member);
+			}
+			long singleNanos = System.nanoTime() - start;
+
+			EmbeddedH2.createMemberTable(pool);
+			start = System.nanoTime();
+			repository.saveAll(members(rows, 0), 500);
+			long batchNanos = System.nanoTime() - start;
+
+			log.info("single save : {} rows/s", rows * 1_000_000_000L / singleNanos);
+			log.info("saveAll(500): {} rows/s", rows * 1_000_000_000L / batchNanos);
+			assertThat(repository.findById("m" + (rows - 1))).isNotNull();
+		}
+	}
+
+	private List<Member> members(int count, int money) {
+		List<Member> members = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			members.add(new Member("m" + i, money));
+		}
+		return members;
+	}
+}
@@ -0,0 +1,128 @@
+package hello.jdbc.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import hello.jdbc.connection.EmbeddedH2;
+import hello.jdbc.domain.Member;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class MemberRepositoryScanTest {
+
+	@TempDir
+	Path dir;
+
+	HikariDataSource dataSource;
+
+	@BeforeEach
+	void before() {
+		dataSource = new HikariDataSource();
+		//테이블이 힙에 올라가지 않도록 파일 DB, 결과도 한 번에 만들지 않도록 LAZY_QUERY_EXECUTION
+		dataSource.setJdbcUrl("jdbc:h2:file:" + dir.resolve("scan") + ";LAZY_QUERY_EXECUTION=1");
+		dataSource.setUsername("sa");
+		dataSource.setPassword("");
+		EmbeddedH2.createMemberTable(dataSource);
+	}
+
+	@AfterEach
+	void after() {
+		dataSource.close();
+	}
+
+	@Test
+	void streamAllClosesResources() {
+		insert(new MemberRepositoryV5(dataSource), 10_000);
+
+		for (MemberRepository repository : List.of(new MemberRepositoryV4_1(dataSource),
+				new MemberRepositoryV4_2(dataSource), new MemberRepositoryV5(dataSource))) {
+			try (Stream<Member> members = repository.streamAll(100)) {
+				assertThat(members.mapToLong(Member::getMoney).sum()).isEqualTo(10_000L * 100);
+			}
+			//중간에 멈춰도 닫으면 커넥션이 반납된다
+			try (Stream<Member> members = repository.streamAll(100)) {
+				assertThat(members.limit(10).count()).isEqualTo(10);
+				assertThat(dataSource.getHikariPoolMXBean().getActiveConnections()).isEqualTo(1);
+			}
+			assertThat(dataSource.getHikariPoolMXBean().getActiveConnections()).isZero();
+
+			AtomicLong count = new AtomicLong();
+			repository.scanAll(100, member -> count.incrementAndGet());
+			assertThat(count.get()).isEqualTo(10_000);
+			assertThat(dataSource.getHikariPoolMXBean().getActiveConnections()).isZero();
+		}
+	}
+
+	@Test
+	void streamAllJoinsTransaction() {
+		MemberRepositoryV4_2 repository = new MemberRepositoryV4_2(dataSource);
+		TransactionTemplate txTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+		txTemplate.executeWithoutResult(status -> {
+			repository.save(new Member("uncommitted", 1000));
+			try (Stream<Member> members = repository.streamAll()) {
+				assertThat(members.map(Member::getMemberId)).containsExactly("uncommitted");
+			}
+			status.setRollbackOnly();
+		});
+	}
+
+	/*
+	 * 100만 건을 읽는 동안 힙 사용량이 거의 늘지 않는지 확인
+	 * List 로 모두 올리면 Member 100만 개로 수십 MB 가 필요하다.
+	 */
+	@Test
+	void scanMillionRowsWithFlatHeap() {
+		int rows = 1_000_000;
+		insert(new MemberRepositoryV5(dataSource), rows);
+		MemberRepositoryV4_2 repository = new MemberRepositoryV4_2(dataSource);
+
+		long baseline = usedHeapAfterGc();
+		long[] peak = { baseline };
+		AtomicLong count = new AtomicLong();
+		long start = System.nanoTime();
+		repository.scanAll(MemberRepository.DEFAULT_FETCH_SIZE, member -> {
+			if (count.incrementAndGet() % 100_000 == 0) {
+				peak[0] = Math.max(peak[0], usedHeapAfterGc());
+			}
+		});
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+		log.info("scanned {} rows in {}ms, heap baseline={}KB peak={}KB", count.get(), elapsedMillis,
+				baseline / 1024, peak[0] / 1024);
+		assertThat(count.get()).isEqualTo(rows);
+		assertThat(peak[0] - baseline).isLessThan(16L * 1024 * 1024);
+	}
+
+	private void insert(MemberRepository repository, int rows) {
+		List<Member> chunk = new ArrayList<>();
+		for (int i = 0; i < rows; i++) {
+			chunk.add(new Member("m" + i, 100));
+			if (chunk.size() == 10_000) {
+				repository.saveAll(chunk);
+				chunk.clear();
+			}
+		}
+		repository.saveAll(chunk);
+	}
+
+	private long usedHeapAfterGc() {
+		System.gc();
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,188 @@
+package hello.jdbc.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import hello.jdbc.connection.EmbeddedH2;
+import hello.jdbc.domain.Member;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class MemberStatementsTest {
+
+	CountingDataSource dataSource;
+	TransactionTemplate txTemplate;
+
+	@BeforeEach
+	void before() {
+		dataSource = new CountingDataSource(EmbeddedH2.dataSource("statements"));
+		txTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+	}
+
+	@Test
+	void reuseStatementsWithinTransaction() throws SQLException {
+		MemberRepositoryV3 repository = new MemberRepositoryV3(dataSource);
+		repository.save(new Member("memberA", 10000));
+		dataSource.reset();
+
+		txTemplate.executeWithoutResult(status -> {
+			try {
+				for (int i = 0; i < 100; i++) {
+					repository.findById("memberA");
+					repository.update("memberA", i);
+				}
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+
+		assertThat(dataSource.prepared.get()).isEqualTo(2);
+		assertThat(dataSource.closed.get()).isEqualTo(2);
+		assertThat(repository.findById("memberA").getMoney()).isEqualTo(99);
+	}
+
+	@Test
+	void closeStatementsOutsideTransaction() throws SQLException {
+		MemberRepositoryV3 repository = new MemberRepositoryV3(dataSource);
+		repository.save(new Member("memberA", 10000));
+		dataSource.reset();
+
+		for (int i = 0; i < 10; i++) {
+			repository.findById("memberA");
+		}
+
+		assertThat(dataSource.prepared.get()).isEqualTo(10);
+		assertThat(dataSource.closed.get()).isEqualTo(10);
+	}
+
+	/*
+	 * 트랜잭션 안에서 findById 반복: 이전 방식(매번 prepareStatement, 컬럼 이름으로 조회) vs MemberStatements
+	 * 20만 번 조회하므로 기본 test 에서는 빠지고 ./gradlew benchmarkTest 로 따로 돌린다.
+	 */
+	@Test
+	@Tag("benchmark")
+	void benchmark() {
+		int iterations = 50_000;
+		MemberRepositoryV3 repository = new MemberRepositoryV3(dataSource);
+		txTemplate.executeWithoutResult(status -> {
+			try {
+				repository.save(new Member("memberA", 10000));
+				//워밍업
+				findByIdBefore("memberA", iterations);
+				findByIdAfter(repository, "memberA", iterations);
+
+				long start = System.nanoTime();
+				findByIdBefore("memberA", iterations);
+				long before = System.nanoTime() - start;
+
+				start = System.nanoTime();
+				findByIdAfter(repository, "memberA", iterations);
+				long after = System.nanoTime() - start;
+
+				log.info("findById before={}ns/op after={}ns/op", before / iterations, after / iterations);
+				assertThat(repository.findById("memberA").getMoney()).isEqualTo(10000);
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+			status.setRollbackOnly();
+		});
+	}
+
+	private void findByIdAfter(MemberRepositoryV3 repository, String memberId, int iterations) throws SQLException {
+		for (int i = 0; i < iterations; i++) {
+			repository.findById(memberId);
+		}
+	}
+
+	//MemberStatements 도입 전 MemberRepositoryV3.findById 와 같은 코드
+	private void findByIdBefore(String memberId, int iterations) throws SQLException {
+		for (int i = 0; i < iterations; i++) {
+			Connection con = DataSourceUtils.getConnection(dataSource);
+			PreparedStatement pstmt = null;
+			ResultSet rs = null;
+			try {
+				pstmt = con.prepareStatement("select * from member where member_id = ?");
+				pstmt.setString(1, memberId);
+				rs = pstmt.executeQuery();
+				if (rs.next()) {
+					Member member = new Member();
+					member.setMemberId(rs.getString("member_id"));
+					member.setMoney(rs.getInt("money"));
+				}
+			} finally {
+				if (rs != null) {
+					rs.close();
+				}
+				if (pstmt != null) {
+					pstmt.close();
+				}
+				DataSourceUtils.releaseConnection(con, dataSource);
+			}
+		}
+	}
+
+	//prepareStatement 와 PreparedStatement.close 호출 수를 센다
+	static class CountingDataSource extends DelegatingDataSource {
+		final AtomicInteger prepared = new AtomicInteger();
+		final AtomicInteger closed = new AtomicInteger();
+
+		CountingDataSource(DataSource target) {
+			super(target);
+		}
+
+		void reset() {
+			prepared.set(0);
+			closed.set(0);
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			Connection con = super.getConnection();
+			return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+					(proxy, method, args) -> {
+						Object result = invoke(con, method, args);
+						if (method.getName().equals("prepareStatement")) {
+							prepared.incrementAndGet();
+							return countClose((PreparedStatement) result);
+						}
+						return result;
+					});
+		}
+
+		private PreparedStatement countClose(PreparedStatement pstmt) {
+			return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+						if (method.getName().equals("close")) {
+							closed.incrementAndGet();
+						}
+						return invoke(pstmt, method, args);
+					});
+		}
+
+		private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(target, args);
+			} catch (InvocationTargetException e) {
+				throw e.getTargetException();
+			}
+		}
+	}
+}
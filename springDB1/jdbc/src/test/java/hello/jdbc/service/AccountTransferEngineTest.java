@@ -0,0 +1,221 @@
+package hello.jdbc.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import hello.jdbc.connection.EmbeddedH2;
+import hello.jdbc.domain.Member;
+import hello.jdbc.repository.MemberRepository;
+import hello.jdbc.repository.MemberRepositoryV5;
+import hello.jdbc.repository.ex.MyDbException;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * 동시 이체 부하 테스트 - 임베디드 H2
+ * 초당 이체 수를 남기고, 이체가 끝난 뒤 전체 잔액 합이 그대로인지 확인한다.
+ */
+@Slf4j
+@SpringBootTest
+public class AccountTransferEngineTest {
+
+	static final int ACCOUNTS = 20;
+	static final int INITIAL_MONEY = 100_000;
+	static final int THREADS = 16;
+	static final int TRANSFERS_PER_THREAD = 1_000;
+
+	@Autowired
+	private DataSource dataSource;
+	@Autowired
+	private MemberRepository memberRepository;
+	@Autowired
+	private AccountTransferEngine transferEngine;
+
+	@TestConfiguration
+	static class TestConfig {
+		@Bean
+		DataSource dataSource() {
+			HikariDataSource dataSource = new HikariDataSource();
+			dataSource.setJdbcUrl(EmbeddedH2.url("transfer"));
+			dataSource.setUsername("sa");
+			dataSource.setPassword("");
+			dataSource.setMaximumPoolSize(THREADS);
+			return dataSource;
+		}
+
+		@Bean
+		PlatformTransactionManager transactionManager() {
+			return new DataSourceTransactionManager(dataSource());
+		}
+
+		@Bean
+		MemberRepository memberRepository() {
+			return new MemberRepositoryV5(dataSource());
+		}
+
+		@Bean
+		MemberServiceV4 memberServiceV4() {
+			return new MemberServiceV4(memberRepository());
+		}
+
+		@Bean
+		AccountTransferEngine accountTransferEngine(MemberServiceV4 memberServiceV4) {
+			return new AccountTransferEngine(memberServiceV4);
+		}
+	}
+
+	@BeforeEach
+	void before() {
+		EmbeddedH2.createMemberTable(dataSource);
+		List<Member> members = new ArrayList<>();
+		for (int i = 0; i < ACCOUNTS; i++) {
+			members.add(new Member(accountId(i), INITIAL_MONEY));
+		}
+		memberRepository.saveAll(members);
+	}
+
+	@Test
+	@DisplayName("잔액 부족이면 롤백")
+	void insufficientBalance() {
+		assertThatThrownBy(() -> transferEngine.transfer(accountId(0), accountId(1), INITIAL_MONEY + 1))
+				.isInstanceOf(InsufficientBalanceException.class);
+
+		assertThat(memberRepository.findById(accountId(0)).getMoney()).isEqualTo(INITIAL_MONEY);
+		assertThat(memberRepository.findById(accountId(1)).getMoney()).isEqualTo(INITIAL_MONEY);
+	}
+
+	@Test
+	@DisplayName("없는 계좌로 이체하면 출금도 롤백")
+	void unknownTarget() {
+		//"m0" > "a" 라서 입금을 먼저 하고 실패
+		assertThatThrownBy(() -> transferEngine.transfer(accountId(0), "a", 1000))
+				.isInstanceOf(NoSuchElementException.class);
+		//"m0" < "z" 라서 출금이 먼저 반영된 뒤 입금에서 실패
+		assertThatThrownBy(() -> transferEngine.transfer(accountId(0), "z", 1000))
+				.isInstanceOf(NoSuchElementException.class);
+
+		assertThat(memberRepository.findById(accountId(0)).getMoney()).isEqualTo(INITIAL_MONEY);
+	}
+
+	@Test
+	@DisplayName("0 이하 금액은 SQL 전에 거절")
+	void nonPositiveAmount() {
+		//음수 금액이 통과하면 출금이 입금이 되고 받는 쪽 잔액이 음수가 된다
+		assertThatThrownBy(() -> transferEngine.transfer(accountId(0), accountId(1), -(INITIAL_MONEY + 1)))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> transferEngine.transfer(accountId(0), accountId(1), 0))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		assertThat(memberRepository.findById(accountId(0)).getMoney()).isEqualTo(INITIAL_MONEY);
+		assertThat(memberRepository.findById(accountId(1)).getMoney()).isEqualTo(INITIAL_MONEY);
+	}
+
+	@Test
+	@DisplayName("MyDbException 으로 감싼 교착도 다시 시도 (MemberRepositoryV4_1)")
+	void retryWrappedDeadlock() {
+		AtomicInteger calls = new AtomicInteger();
+		AccountTransferEngine engine = new AccountTransferEngine(new MemberServiceV4(memberRepository) {
+			@Override
+			public void accountTransfer(String fromId, String toId, int money) {
+				if (calls.incrementAndGet() == 1) {
+					throw new MyDbException(new SQLTransactionRollbackException("deadlock", "40001"));
+				}
+			}
+		});
+
+		engine.transfer(accountId(0), accountId(1), 1000);
+
+		assertThat(calls.get()).isEqualTo(2);
+		assertThat(engine.getRetryCount()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("일시적이지 않은 DB 오류는 다시 시도하지 않음")
+	void noRetryOnPermanentError() {
+		AtomicInteger calls = new AtomicInteger();
+		AccountTransferEngine engine = new AccountTransferEngine(new MemberServiceV4(memberRepository) {
+			@Override
+			public void accountTransfer(String fromId, String toId, int money) {
+				calls.incrementAndGet();
+				throw new MyDbException(new SQLException("syntax error", "42000"));
+			}
+		});
+
+		assertThatThrownBy(() -> engine.transfer(accountId(0), accountId(1), 1000))
+				.isInstanceOf(MyDbException.class);
+		assertThat(calls.get()).isEqualTo(1);
+		assertThat(engine.getRetryCount()).isZero();
+	}
+
+	@Test
+	@DisplayName("동시 이체 - 돈은 보존된다")
+	void concurrentTransfers() throws Exception {
+		LongAdder completed = new LongAdder();
+		LongAdder rejected = new LongAdder();
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> futures = new ArrayList<>();
+
+		long start = System.nanoTime();
+		for (int t = 0; t < THREADS; t++) {
+			futures.add(executor.submit(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+					int from = random.nextInt(ACCOUNTS);
+					int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+					try {
+						transferEngine.transfer(accountId(from), accountId(to), 1 + random.nextInt(20_000));
+						completed.increment();
+					} catch (InsufficientBalanceException e) {
+						rejected.increment();
+					}
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		long elapsedNanos = System.nanoTime() - start;
+		executor.shutdown();
+
+		log.info("transfers={} rejected={} retries={} elapsed={}ms -> {} transfers/s", completed.sum(),
+				rejected.sum(), transferEngine.getRetryCount(), elapsedNanos / 1_000_000,
+				(completed.sum() + rejected.sum()) * 1_000_000_000L / elapsedNanos);
+
+		JdbcTemplate template = new JdbcTemplate(dataSource);
+		Long total = template.queryForObject("select sum(money) from member", Long.class);
+		Integer negative = template.queryForObject("select count(*) from member where money < 0", Integer.class);
+		assertThat(total).isEqualTo((long) ACCOUNTS * INITIAL_MONEY);
+		assertThat(negative).isZero();
+		assertThat(completed.sum() + rejected.sum()).isEqualTo((long) THREADS * TRANSFERS_PER_THREAD);
+	}
+
+	private static String accountId(int i) {
+		return "m" + i;
+	}
+}
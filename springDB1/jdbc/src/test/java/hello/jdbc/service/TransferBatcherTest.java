@@ -0,0 +1,219 @@
+package hello.jdbc.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import hello.jdbc.connection.EmbeddedH2;
+import hello.jdbc.domain.Member;
+import hello.jdbc.repository.MemberRepository;
+import hello.jdbc.repository.MemberRepositoryV5;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class TransferBatcherTest {
+
+	static final int ACCOUNTS = 20;
+	static final int INITIAL_MONEY = 100_000;
+
+	HikariDataSource dataSource;
+	DataSourceTransactionManager transactionManager;
+	MemberRepository memberRepository;
+
+	@BeforeEach
+	void before() {
+		dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl(EmbeddedH2.url("batcher"));
+		dataSource.setUsername("sa");
+		dataSource.setPassword("");
+		EmbeddedH2.createMemberTable(dataSource);
+		transactionManager = new DataSourceTransactionManager(dataSource);
+		memberRepository = new MemberRepositoryV5(dataSource);
+
+		List<Member> members = new ArrayList<>();
+		for (int i = 0; i < ACCOUNTS; i++) {
+			members.add(new Member("m" + i, INITIAL_MONEY));
+		}
+		memberRepository.saveAll(members);
+	}
+
+	@AfterEach
+	void after() {
+		dataSource.close();
+	}
+
+	@Test
+	@DisplayName("배치 안에서 실패한 이체만 롤백")
+	void failureIsolatedToOneTransfer() throws Exception {
+		try (TransferBatcher batcher = new TransferBatcher(transactionManager, memberRepository, 3,
+				Duration.ofSeconds(1), 100)) {
+			CompletableFuture<Void> ok1 = batcher.submit("m0", "m1", 1000);
+			CompletableFuture<Void> fail = batcher.submit("m2", "m3", INITIAL_MONEY + 1);
+			CompletableFuture<Void> ok2 = batcher.submit("m5", "m4", 2000);
+
+			ok1.get();
+			ok2.get();
+			assertThat(fail).failsWithin(Duration.ofSeconds(1))
+					.withThrowableOfType(ExecutionException.class)
+					.withCauseInstanceOf(InsufficientBalanceException.class);
+			assertThat(batcher.getBatchCount()).isEqualTo(1);
+		}
+
+		assertThat(memberRepository.findById("m0").getMoney()).isEqualTo(INITIAL_MONEY - 1000);
+		assertThat(memberRepository.findById("m1").getMoney()).isEqualTo(INITIAL_MONEY + 1000);
+		assertThat(memberRepository.findById("m2").getMoney()).isEqualTo(INITIAL_MONEY);
+		assertThat(memberRepository.findById("m3").getMoney()).isEqualTo(INITIAL_MONEY);
+		assertThat(memberRepository.findById("m4").getMoney()).isEqualTo(INITIAL_MONEY + 2000);
+		assertThat(memberRepository.findById("m5").getMoney()).isEqualTo(INITIAL_MONEY - 2000);
+	}
+
+	@Test
+	void rejectAfterClose() {
+		TransferBatcher batcher = new TransferBatcher(transactionManager, memberRepository, 10, Duration.ZERO, 10);
+		batcher.close();
+
+		assertThat(batcher.submit("m0", "m1", 1000)).failsWithin(Duration.ofSeconds(1))
+				.withThrowableOfType(ExecutionException.class)
+				.withCauseInstanceOf(RejectedExecutionException.class);
+	}
+
+	@Test
+	@DisplayName("교착 같은 일시적 DB 오류는 배치 전체를 다시 실행")
+	void concurrencyFailureRetriesWholeBatch() throws Exception {
+		MemberRepository repository = failingDeposit("m3", 1, () -> new CannotAcquireLockException("lock wait timeout"));
+		try (TransferBatcher batcher = new TransferBatcher(transactionManager, repository, 3, Duration.ofSeconds(1),
+				100)) {
+			CompletableFuture<Void> ok1 = batcher.submit("m0", "m1", 1000);
+			CompletableFuture<Void> retried = batcher.submit("m2", "m3", 500);
+			CompletableFuture<Void> ok2 = batcher.submit("m5", "m4", 2000);
+
+			CompletableFuture.allOf(ok1, retried, ok2).get();
+			assertThat(batcher.getBatchCount()).isEqualTo(1);
+		}
+
+		//재시도해도 한 번만 반영된다
+		assertThat(memberRepository.findById("m0").getMoney()).isEqualTo(INITIAL_MONEY - 1000);
+		assertThat(memberRepository.findById("m1").getMoney()).isEqualTo(INITIAL_MONEY + 1000);
+		assertThat(memberRepository.findById("m2").getMoney()).isEqualTo(INITIAL_MONEY - 500);
+		assertThat(memberRepository.findById("m3").getMoney()).isEqualTo(INITIAL_MONEY + 500);
+		assertThat(memberRepository.findById("m4").getMoney()).isEqualTo(INITIAL_MONEY + 2000);
+	}
+
+	@Test
+	@DisplayName("업무 거절이 아닌 DB 오류는 배치의 모든 이체를 실패시킨다")
+	void dataAccessFailureFailsWholeBatch() {
+		MemberRepository repository = failingDeposit("m3", Integer.MAX_VALUE,
+				() -> new DataAccessResourceFailureException("connection reset"));
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		try (TransferBatcher batcher = new TransferBatcher(transactionManager, repository, 3, Duration.ofSeconds(1),
+				100)) {
+			futures.add(batcher.submit("m0", "m1", 1000));
+			futures.add(batcher.submit("m2", "m3", 500));
+			futures.add(batcher.submit("m5", "m4", 2000));
+
+			for (CompletableFuture<Void> future : futures) {
+				assertThat(future).failsWithin(Duration.ofSeconds(5))
+						.withThrowableOfType(ExecutionException.class)
+						.withCauseInstanceOf(DataAccessResourceFailureException.class);
+			}
+			assertThat(batcher.getBatchCount()).isZero();
+		}
+
+		//앞서 성공한 이체도 같이 롤백된다
+		assertThat(memberRepository.findById("m0").getMoney()).isEqualTo(INITIAL_MONEY);
+		assertThat(memberRepository.findById("m1").getMoney()).isEqualTo(INITIAL_MONEY);
+		assertThat(memberRepository.findById("m2").getMoney()).isEqualTo(INITIAL_MONEY);
+	}
+
+	/*
+	 * 같은 이체를 건마다 커밋 vs 그룹 커밋
+	 * 2만 건을 두 번 실행하므로 기본 test 에서는 빠지고 ./gradlew benchmarkTest 로 따로 돌린다.
+	 */
+	@Test
+	@Tag("benchmark")
+	@DisplayName("그룹 커밋 처리량 - 돈은 보존된다")
+	void throughput() {
+		int transfers = 20_000;
+		List<String[]> pairs = new ArrayList<>(transfers);
+		List<Integer> amounts = new ArrayList<>(transfers);
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (int i = 0; i < transfers; i++) {
+			int from = random.nextInt(ACCOUNTS);
+			int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+			pairs.add(new String[] { "m" + from, "m" + to });
+			amounts.add(1 + random.nextInt(20_000));
+		}
+
+		//건마다 트랜잭션 하나(MemberServiceV4 와 같은 방식)
+		TransactionTemplate perTransferTx = new TransactionTemplate(transactionManager);
+		long start = System.nanoTime();
+		for (int i = 0; i < transfers; i++) {
+			String[] pair = pairs.get(i);
+			int money = amounts.get(i);
+			try {
+				perTransferTx.executeWithoutResult(
+						status -> TransferSteps.apply(memberRepository, pair[0], pair[1], money));
+			} catch (InsufficientBalanceException e) {
+				//잔액 부족은 그 이체만 실패
+			}
+		}
+		long perTransferNanos = System.nanoTime() - start;
+
+		List<CompletableFuture<Void>> futures = new ArrayList<>(transfers);
+		start = System.nanoTime();
+		try (TransferBatcher batcher = new TransferBatcher(transactionManager, memberRepository, 200,
+				Duration.ofMillis(2), transfers)) {
+			for (int i = 0; i < transfers; i++) {
+				futures.add(batcher.submit(pairs.get(i)[0], pairs.get(i)[1], amounts.get(i)));
+			}
+			long failed = futures.stream().filter(f -> f.handle((v, e) -> e != null).join()).count();
+			long batchedNanos = System.nanoTime() - start;
+			log.info("per-transfer commit: {} transfers/s", transfers * 1_000_000_000L / perTransferNanos);
+			log.info("group commit: failed={} batches={} -> {} transfers/s", failed, batcher.getBatchCount(),
+					transfers * 1_000_000_000L / batchedNanos);
+		}
+
+		Long total = new JdbcTemplate(dataSource).queryForObject("select sum(money) from member", Long.class);
+		assertThat(total).isEqualTo((long) ACCOUNTS * INITIAL_MONEY);
+	}
+
+	//toId 로의 입금을 처음 failures 번 failure 로 실패시키는 저장소
+	private MemberRepository failingDeposit(String toId, int failures, Supplier<RuntimeException> failure) {
+		AtomicInteger remaining = new AtomicInteger(failures);
+		return (MemberRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { MemberRepository.class }, (proxy, method, args) -> {
+					if (method.getName().equals("deposit") && toId.equals(args[0])
+							&& remaining.getAndDecrement() > 0) {
+						throw failure.get();
+					}
+					try {
+						return method.invoke(memberRepository, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+	}
+}